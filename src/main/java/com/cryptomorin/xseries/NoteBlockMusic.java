@@ -22,6 +22,9 @@
 package com.cryptomorin.xseries;
 
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import org.bukkit.Instrument;
 import org.bukkit.Location;
 import org.bukkit.Note;
@@ -33,13 +36,29 @@ import org.bukkit.scheduler.BukkitTask;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
-import java.io.IOException;
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 /**
@@ -64,6 +83,12 @@ public final class NoteBlockMusic {
 
     private static final Map<Instrument, XSound> INSTRUMENT_TO_SOUND = new EnumMap<>(Instrument.class);
 
+    /**
+     * @see #compileScript(String)
+     */
+    private static final Cache<String, Timeline> SCRIPT_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(500).recordStats().build();
+
     static {
         INSTRUMENT_TO_SOUND.put(Instrument.PIANO, XSound.BLOCK_NOTE_BLOCK_HARP);
         INSTRUMENT_TO_SOUND.put(Instrument.BASS_DRUM, XSound.BLOCK_NOTE_BLOCK_BASEDRUM);
@@ -175,27 +200,48 @@ public final class NoteBlockMusic {
     /**
      * Plays a music from a file.
      * This file can have YAML comments (#) and empty lines.
+     * Each line is played after the previous line is finished.
      *
      * @param player   the player to play the music to.
      * @param location the location to play the notes to.
      * @param path     the path of the file to read the music notes from.
-     * @return the async task handling the file operations and music parsers.
+     * @return a future that completes when the music is finished, which can also be cancelled to stop the music.
      * @see #playMusic(Player, Supplier, String)
      * @since 1.0.0
      */
     public static CompletableFuture<Void> fromFile(@Nonnull Player player, @Nonnull Supplier<Location> location, @Nonnull Path path) {
-        return CompletableFuture.runAsync(() -> {
-            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    line = line.trim();
-                    if (line.isEmpty() || line.startsWith("#")) continue;
-                    parseInstructions(line).play(player, location, true);
-                }
+        // Only the file is read asynchronously, the notes are played by the sequencer.
+        return playWhenParsed(CompletableFuture.supplyAsync(() -> {
+            try {
+                return parseFile(path);
             } catch (IOException ex) {
                 ex.printStackTrace();
+                return new Sequence();
             }
-        });
+        }, Sequencer.IO), player, location);
+    }
+
+    /**
+     * Parses a music script file where each line is played after the previous one.
+     * This file can have YAML comments (#) and empty lines.
+     *
+     * @param path the path of the file to read the music notes from.
+     * @return a sequence of all the lines.
+     * @see #fromFile(Player, Supplier, Path)
+     * @since 12.0.0
+     */
+    @Nonnull
+    public static Sequence parseFile(@Nonnull Path path) throws IOException {
+        Sequence sequence = new Sequence();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                sequence.addInstruction(parseInstructions(line));
+            }
+        }
+        return sequence;
     }
 
     /**
@@ -203,7 +249,7 @@ public final class NoteBlockMusic {
      * This method allows you to write your own Minecraft music without needing to use
      * redstones and note blocks.
      * <p>
-     * We'll take a whole thread for the music for blocking requests.
+     * The notes are played by the {@link Playback sequencer}, so no thread is blocked while waiting for the next note.
      * <b>Format:</b><p>
      * Instrument, Tone, Repeat (optional), Repeating Delay (optional, required if Repeat is used) [Next Delay]<br>
      * Both delays are in milliseconds.<br>
@@ -236,25 +282,113 @@ public final class NoteBlockMusic {
      * <b>CompletableFuture</b><p>
      * Warning: Do not use blocking methods such as join() or get()
      * You may use cancel() or the then... methods.
+     * Use {@link #play(Timeline, Player, Supplier, boolean)} if you need to pause or seek the music.
      *
      * @param player   in order to play the note we need a player instance. Any player.
      * @param location the location to play this note to.
      * @param script   the music script.
-     * @return the async task processing the script.
+     * @return a future that completes when the music is finished, which can also be cancelled to stop the music.
      * @see #fromFile(Player, Supplier, Path)
      * @since 1.0.0
      */
     public static CompletableFuture<Void> playMusic(@Nonnull Player player, @Nonnull Supplier<Location> location, @Nullable String script) {
-        // We don't want to mess around in the main thread.
-        // Sounds are thread-safe.
-        return CompletableFuture.runAsync(() -> {
-            if (Strings.isNullOrEmpty(script)) return;
-            Sequence seq = parseInstructions(script);
-            seq.play(player, location, true);
-        }).exceptionally(ex -> {
+        if (Strings.isNullOrEmpty(script)) return CompletableFuture.completedFuture(null);
+
+        Timeline timeline;
+        try {
+            timeline = compileScript(script);
+        } catch (Throwable ex) {
             ex.printStackTrace();
-            return null;
+            return CompletableFuture.completedFuture(null);
+        }
+        return play(timeline, player, location, true).getCompletion();
+    }
+
+    /**
+     * Parses and flattens a music script into a timeline.
+     * The timelines are cached by their script, so the same script is only parsed once
+     * as long as it's used frequently.
+     *
+     * @param script the music script, check {@link #playMusic(Player, Supplier, String)} for the format.
+     * @return the timeline of the script which is immutable.
+     * @see #getScriptCacheStats()
+     * @since 12.0.0
+     */
+    @Nonnull
+    public static Timeline compileScript(@Nonnull String script) {
+        Timeline timeline = SCRIPT_CACHE.getIfPresent(script);
+        if (timeline == null) {
+            timeline = parseInstructions(script).toTimeline();
+            SCRIPT_CACHE.put(script, timeline);
+        }
+        return timeline;
+    }
+
+    /**
+     * Statistics of the cache used by {@link #compileScript(String)}, such as the hit and miss counts.
+     *
+     * @since 12.0.0
+     */
+    @Nonnull
+    public static CacheStats getScriptCacheStats() {
+        return SCRIPT_CACHE.stats();
+    }
+
+    private static CompletableFuture<Void> playWhenParsed(CompletableFuture<Sequence> parsing, Player player, Supplier<Location> location) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        parsing.whenComplete((sequence, ex) -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                result.complete(null);
+                return;
+            }
+            if (result.isDone()) return; // Cancelled while parsing.
+
+            Playback playback = play(sequence.toTimeline(), player, location, true);
+            playback.getCompletion().whenComplete((v, playbackEx) -> result.complete(null));
+            result.whenComplete((v, resultEx) -> {
+                if (result.isCancelled()) playback.cancel();
+            });
         });
+        return result;
+    }
+
+    /**
+     * Starts playing a timeline using the shared sequencer.
+     *
+     * @param timeline       the notes to play.
+     * @param player         the player to play the notes to.
+     * @param location       the location to play the notes at, which is checked for every note.
+     * @param playAtLocation if true, everyone near the location can hear the notes, otherwise only the player.
+     * @return the playback that can be used to pause, seek or cancel the music.
+     * @since 12.0.0
+     */
+    @Nonnull
+    public static Playback play(@Nonnull Timeline timeline, @Nonnull Player player, @Nonnull Supplier<Location> location, boolean playAtLocation) {
+        Playback playback = new Playback(timeline, player, location, playAtLocation);
+        playback.resume();
+        return playback;
+    }
+
+    /**
+     * Starts playing a timeline for a group of players that can change while the music is playing.
+     * Every note is only resolved once and then sent to all the listeners, so the cost of each note
+     * doesn't depend on the number of listeners other than sending the sound itself.
+     * <p>
+     * Listeners that go offline are removed automatically. The music continues playing even if there
+     * are no listeners, so listeners can join later.
+     *
+     * @param timeline  the notes to play.
+     * @param location  the location to play the notes at, or null to play the notes at the location of each listener.
+     * @param listeners the initial listeners.
+     * @return the playback that can be used to add or remove listeners, pause, seek or cancel the music.
+     * @since 12.0.0
+     */
+    @Nonnull
+    public static Playback broadcast(@Nonnull Timeline timeline, @Nullable Location location, @Nonnull Collection<Player> listeners) {
+        Playback playback = new Playback(timeline, location, listeners);
+        playback.resume();
+        return playback;
     }
 
     public static Sequence parseInstructions(@Nonnull CharSequence script) {
@@ -262,7 +396,7 @@ public final class NoteBlockMusic {
     }
 
     /**
-     * Method used to handle delays of instructions.
+     * Method used to handle delays of instructions when they're played directly using {@link Instruction#play(Player, Supplier, boolean)}.
      * This method should always be called in another thread to
      * avoid freezing the main Minecraft thread.
      *
@@ -645,6 +779,15 @@ public final class NoteBlockMusic {
             if (fermata > 0) sleep(fermata);
         }
 
+        @Override
+        public long compile(@Nonnull Timeline.Builder timeline, long time) {
+            for (int repeat = restatement; repeat > 0; repeat--) {
+                if (sound != null) timeline.add(time, sound, volume, pitch);
+                time += Math.max(0, restatementFermata);
+            }
+            return time + Math.max(0, fermata);
+        }
+
         @Override
         public String toString() {
             return "Sound:{sound=" + sound + ", pitch=" + pitch + ", volume=" + volume +
@@ -705,8 +848,28 @@ public final class NoteBlockMusic {
             this.fermata = fermata;
         }
 
+        /**
+         * Plays this instruction on the current thread, which blocks the thread for all the delays.
+         * Use {@link NoteBlockMusic#play(Timeline, Player, Supplier, boolean)} instead.
+         */
         public abstract void play(Player player, Supplier<Location> location, boolean playAtLocation);
 
+        /**
+         * Adds the notes of this instruction to a timeline.
+         * Instructions that don't override this are {@link Timeline.Builder#addInstruction(long, Instruction) added as a whole}
+         * and are still played with {@link #play(Player, Supplier, boolean)}. The next instruction starts after their
+         * {@link #getEstimatedLength() estimated length} and fermata.
+         *
+         * @param timeline the timeline to add the notes to.
+         * @param time     the time in milliseconds that this instruction starts at.
+         * @return the time that the next instruction starts at.
+         * @since 12.0.0
+         */
+        public long compile(@Nonnull Timeline.Builder timeline, long time) {
+            timeline.addInstruction(time, this);
+            return time + getEstimatedLength() + fermata;
+        }
+
         public long getEstimatedLength() {
             return (long) restatement * restatementFermata;
         }
@@ -763,6 +926,29 @@ public final class NoteBlockMusic {
             return builder.toString();
         }
 
+        @Override
+        public long compile(@Nonnull Timeline.Builder timeline, long time) {
+            for (int repeat = restatement; repeat > 0; repeat--) {
+                for (Instruction instruction : instructions) {
+                    time = instruction.compile(timeline, time);
+                }
+                time += Math.max(0, restatementFermata);
+            }
+            return time + Math.max(0, fermata);
+        }
+
+        /**
+         * Flattens this sequence into a list of notes with the exact time they should be played at.
+         *
+         * @since 12.0.0
+         */
+        @Nonnull
+        public Timeline toTimeline() {
+            Timeline.Builder builder = new Timeline.Builder();
+            long length = compile(builder, 0);
+            return builder.build(length);
+        }
+
         public void addInstruction(Instruction instruction) {
             instruction.parent = this;
             instructions.add(instruction);
@@ -775,4 +961,1210 @@ public final class NoteBlockMusic {
             return result;
         }
     }
+
+    /**
+     * A flattened {@link Sequence} where every note is stored with the exact time it should be played at.
+     * The notes are sorted by their time, and the same timeline can be played multiple times at once.
+     * <p>
+     * The notes are stored in a compact binary form instead of objects, which is also the
+     * format used to {@link #write(OutputStream) save} the timeline, so a timeline can be
+     * {@link #read(ByteBuffer) read} directly from a memory-mapped file without copying or parsing anything.
+     * <p>
+     * <b>Format (big-endian):</b>
+     * <pre>
+     * int     magic number {@link #MAGIC}
+     * short   format version {@link #VERSION}
+     * long    length in milliseconds
+     * int     the number of notes (n)
+     * short   the number of sounds in the palette, followed by the sounds' names (UTF-8 with a short length prefix)
+     * int[n]  the time of each note in milliseconds
+     * short[n] the index of each note's sound in the palette
+     * float[n] the volume of each note
+     * float[n] the pitch of each note
+     * </pre>
+     * The sounds are stored by their name instead of their ordinal, so the files stay valid between different versions of XSound.
+     *
+     * @since 12.0.0
+     */
+    public static final class Timeline {
+        public static final int MAGIC = 0x584E424D; // XNBM
+        public static final short VERSION = 1;
+        private static final int NOTE_BYTES = Integer.BYTES + Short.BYTES + Float.BYTES + Float.BYTES;
+        private static final Instruction[] NO_INSTRUCTIONS = new Instruction[0];
+        private static final int[] NO_TIMES = new int[0];
+
+        /**
+         * Sounds that are not supported in the current version are null.
+         */
+        private final XSound[] palette;
+        private final String[] paletteNames;
+        private final ByteBuffer notes;
+        private final int size;
+        private final long length;
+        private final int soundsOffset, volumesOffset, pitchesOffset;
+        /**
+         * The instructions that couldn't be compiled into notes, sorted by the time that they're played at.
+         * They're only kept in memory, so they can't be {@link #write(OutputStream) written}.
+         */
+        private final Instruction[] instructions;
+        private final int[] instructionTimes;
+
+        private Timeline(XSound[] palette, String[] paletteNames, ByteBuffer notes, int size, long length,
+                         Instruction[] instructions, int[] instructionTimes) {
+            this.palette = palette;
+            this.paletteNames = paletteNames;
+            this.notes = notes;
+            this.size = size;
+            this.length = length;
+            this.soundsOffset = size * Integer.BYTES;
+            this.volumesOffset = soundsOffset + size * Short.BYTES;
+            this.pitchesOffset = volumesOffset + size * Float.BYTES;
+            this.instructions = instructions;
+            this.instructionTimes = instructionTimes;
+        }
+
+        /**
+         * Reads a timeline that was {@link #write(OutputStream) written} to a buffer.
+         * The notes are not copied, so the timeline uses the same memory as the buffer.
+         *
+         * @param buffer the buffer to read from, starting at its current position. The buffer itself is not modified.
+         * @throws IllegalArgumentException if the buffer doesn't contain a valid timeline.
+         */
+        @Nonnull
+        public static Timeline read(@Nonnull ByteBuffer buffer) {
+            buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+            try {
+                int magic = buffer.getInt();
+                if (magic != MAGIC) throw new IllegalArgumentException("Not a compiled song, unknown magic number: " + Integer.toHexString(magic));
+                short version = buffer.getShort();
+                if (version != VERSION) throw new IllegalArgumentException("Unsupported compiled song version: " + version);
+
+                long length = buffer.getLong();
+                int size = buffer.getInt();
+                if (size < 0) throw new IllegalArgumentException("Invalid number of notes: " + size);
+
+                int paletteSize = buffer.getShort() & 0xFFFF;
+                XSound[] palette = new XSound[paletteSize];
+                String[] paletteNames = new String[paletteSize];
+                for (int i = 0; i < paletteSize; i++) {
+                    byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                    buffer.get(name);
+                    paletteNames[i] = new String(name, StandardCharsets.UTF_8);
+                    palette[i] = XSound.matchXSound(paletteNames[i]).orElse(null);
+                }
+
+                if (buffer.remaining() < (long) size * NOTE_BYTES)
+                    throw new IllegalArgumentException("Compiled song is truncated, expected " + size + " notes");
+                ByteBuffer notes = buffer.slice();
+                // Buffer methods are called through Buffer, since the ByteBuffer overloads of JDK 9+ don't exist on Java 8.
+                ((Buffer) notes).limit(size * NOTE_BYTES);
+                return new Timeline(palette, paletteNames, notes, size, length, NO_INSTRUCTIONS, NO_TIMES);
+            } catch (BufferUnderflowException ex) {
+                throw new IllegalArgumentException("Compiled song is truncated", ex);
+            }
+        }
+
+        /**
+         * Memory-maps and {@link #read(ByteBuffer) reads} a compiled song file.
+         */
+        @Nonnull
+        public static Timeline read(@Nonnull Path path) throws IOException {
+            return read(map(path));
+        }
+
+        private static MappedByteBuffer map(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // The mapping stays valid after the channel is closed.
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        /**
+         * Writes this timeline in its binary format. The stream is not closed.
+         *
+         * @throws IllegalStateException if this timeline has {@link Builder#addInstruction(long, Instruction) instructions}
+         *                               that couldn't be compiled into notes.
+         */
+        public void write(@Nonnull OutputStream out) throws IOException {
+            if (instructions.length != 0)
+                throw new IllegalStateException("Cannot write a timeline with custom instructions: " + Arrays.toString(instructions));
+
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeShort(VERSION);
+            data.writeLong(length);
+            data.writeInt(size);
+            data.writeShort(paletteNames.length);
+            for (String name : paletteNames) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                data.writeShort(bytes.length);
+                data.write(bytes);
+            }
+
+            ByteBuffer notes = this.notes.duplicate();
+            ((Buffer) notes).position(0);
+            if (notes.hasArray()) {
+                data.write(notes.array(), notes.arrayOffset(), notes.limit());
+            } else {
+                byte[] bytes = new byte[notes.limit()];
+                notes.get(bytes);
+                data.write(bytes);
+            }
+            data.flush();
+        }
+
+        /**
+         * Writes this timeline to a file, replacing it if it already exists.
+         *
+         * @see #write(OutputStream)
+         */
+        public void write(@Nonnull Path path) throws IOException {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+                write(out);
+            }
+        }
+
+        /**
+         * @return the number of notes in this timeline.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the length of this timeline in milliseconds, including the delay after the last note.
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * @return the time in milliseconds that the note at the given index is played at.
+         */
+        public int getTime(int index) {
+            return notes.getInt(index * Integer.BYTES);
+        }
+
+        /**
+         * @return the sound of the note at the given index, or null if it's not supported in this version.
+         */
+        @Nullable
+        public XSound getSound(int index) {
+            return palette[notes.getShort(soundsOffset + index * Short.BYTES) & 0xFFFF];
+        }
+
+        public float getVolume(int index) {
+            return notes.getFloat(volumesOffset + index * Float.BYTES);
+        }
+
+        public float getPitch(int index) {
+            return notes.getFloat(pitchesOffset + index * Float.BYTES);
+        }
+
+        /**
+         * @return the index of the first note that is played at or after the given time.
+         */
+        private int indexAt(long time) {
+            int low = 0, high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (getTime(mid) < time) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        /**
+         * @return the index of the first instruction that is played at or after the given time.
+         */
+        private int instructionIndexAt(long time) {
+            int index = 0;
+            while (index < instructionTimes.length && instructionTimes[index] < time) index++;
+            return index;
+        }
+
+        private void play(int index, Player player, Location location, boolean playAtLocation) {
+            XSound xSound = getSound(index);
+            org.bukkit.Sound sound = xSound == null ? null : xSound.parseSound();
+            if (sound == null) return;
+            if (playAtLocation) location.getWorld().playSound(location, sound, getVolume(index), getPitch(index));
+            else player.playSound(location, sound, getVolume(index), getPitch(index));
+        }
+
+        @Override
+        public String toString() {
+            return "Timeline:{notes=" + size + ", instructions=" + instructions.length + ", length=" + length + '}';
+        }
+
+        /**
+         * Collects the notes of {@link Instruction#compile(Builder, long)}.
+         * The notes can be added in any order.
+         */
+        public static final class Builder {
+            private int[] times = new int[64];
+            private XSound[] sounds = new XSound[64];
+            private float[] volumes = new float[64], pitches = new float[64];
+            private int size;
+            private boolean sorted = true;
+            private Instruction[] instructions = NO_INSTRUCTIONS;
+            private int[] instructionTimes = NO_TIMES;
+            private int instructionCount;
+
+            public Builder add(long time, @Nonnull XSound sound, float volume, float pitch) {
+                if (time < 0 || time > Integer.MAX_VALUE) throw new IllegalArgumentException("Note time out of range: " + time);
+                if (size == times.length) {
+                    int newSize = size * 2;
+                    times = Arrays.copyOf(times, newSize);
+                    sounds = Arrays.copyOf(sounds, newSize);
+                    volumes = Arrays.copyOf(volumes, newSize);
+                    pitches = Arrays.copyOf(pitches, newSize);
+                }
+                if (size != 0 && times[size - 1] > time) sorted = false;
+
+                times[size] = (int) time;
+                sounds[size] = Objects.requireNonNull(sound, "Cannot add null sound");
+                volumes[size] = volume;
+                pitches[size] = pitch;
+                size++;
+                return this;
+            }
+
+            /**
+             * Adds an instruction that can't be compiled into notes. When the timeline reaches it,
+             * the instruction is {@link Instruction#play(Player, Supplier, boolean) played} by a thread pool that is
+             * only used for such instructions, once for all the listeners of a broadcast.
+             */
+            public Builder addInstruction(long time, @Nonnull Instruction instruction) {
+                if (time < 0 || time > Integer.MAX_VALUE) throw new IllegalArgumentException("Instruction time out of range: " + time);
+                Objects.requireNonNull(instruction, "Cannot add null instruction");
+                if (instructionCount == instructions.length) {
+                    int newSize = Math.max(4, instructionCount * 2);
+                    instructions = Arrays.copyOf(instructions, newSize);
+                    instructionTimes = Arrays.copyOf(instructionTimes, newSize);
+                }
+
+                // There are usually only a few of these, so they're kept sorted as they're added.
+                int index = instructionCount;
+                while (index > 0 && instructionTimes[index - 1] > time) {
+                    instructions[index] = instructions[index - 1];
+                    instructionTimes[index] = instructionTimes[index - 1];
+                    index--;
+                }
+                instructions[index] = instruction;
+                instructionTimes[index] = (int) time;
+                instructionCount++;
+                return this;
+            }
+
+            @Nonnull
+            public Timeline build(long length) {
+                if (!sorted) sort();
+                if (size != 0) length = Math.max(length, times[size - 1]);
+                if (instructionCount != 0) length = Math.max(length, instructionTimes[instructionCount - 1]);
+
+                Map<XSound, Integer> paletteIndices = new EnumMap<>(XSound.class);
+                List<XSound> palette = new ArrayList<>();
+                ByteBuffer notes = ByteBuffer.allocate(size * NOTE_BYTES);
+                for (int i = 0; i < size; i++) notes.putInt(times[i]);
+                for (int i = 0; i < size; i++) {
+                    Integer index = paletteIndices.get(sounds[i]);
+                    if (index == null) {
+                        index = palette.size();
+                        paletteIndices.put(sounds[i], index);
+                        palette.add(sounds[i]);
+                    }
+                    notes.putShort(index.shortValue());
+                }
+                for (int i = 0; i < size; i++) notes.putFloat(volumes[i]);
+                for (int i = 0; i < size; i++) notes.putFloat(pitches[i]);
+                ((Buffer) notes).flip();
+
+                XSound[] paletteArray = palette.toArray(new XSound[0]);
+                String[] paletteNames = new String[paletteArray.length];
+                for (int i = 0; i < paletteArray.length; i++) paletteNames[i] = paletteArray[i].name();
+                return new Timeline(paletteArray, paletteNames, notes, size, length,
+                        Arrays.copyOf(instructions, instructionCount), Arrays.copyOf(instructionTimes, instructionCount));
+            }
+
+            private void sort() {
+                // Stable sort so notes with the same time keep their order.
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++) order[i] = i;
+                Arrays.sort(order, Comparator.comparingInt(i -> times[i]));
+
+                int[] sortedTimes = new int[times.length];
+                XSound[] sortedSounds = new XSound[times.length];
+                float[] sortedVolumes = new float[times.length], sortedPitches = new float[times.length];
+                for (int i = 0; i < size; i++) {
+                    int from = order[i];
+                    sortedTimes[i] = times[from];
+                    sortedSounds[i] = sounds[from];
+                    sortedVolumes[i] = volumes[from];
+                    sortedPitches[i] = pitches[from];
+                }
+
+                times = sortedTimes;
+                sounds = sortedSounds;
+                volumes = sortedVolumes;
+                pitches = sortedPitches;
+                sorted = true;
+            }
+        }
+    }
+
+    /**
+     * A directory of {@link Timeline#write(Path) compiled songs} which are all memory-mapped when loaded.
+     * Each song is only {@link Timeline#read(ByteBuffer) read} the first time it's requested, and even then,
+     * its notes are used directly from the mapped file, so loading a library uses almost no heap.
+     *
+     * @since 12.0.0
+     */
+    public static final class SongLibrary {
+        /**
+         * The file extension of compiled songs.
+         */
+        public static final String EXTENSION = ".nbm";
+
+        private final Map<String, ByteBuffer> files;
+        private final Map<String, Timeline> songs = new ConcurrentHashMap<>();
+
+        private SongLibrary(Map<String, ByteBuffer> files) {
+            this.files = files;
+        }
+
+        /**
+         * Maps all the {@link #EXTENSION compiled songs} in the given directory (not including subdirectories).
+         *
+         * @param directory the directory of the songs.
+         * @return a library of the songs mapped by their file name without the extension.
+         */
+        @Nonnull
+        public static SongLibrary load(@Nonnull Path directory) throws IOException {
+            Map<String, ByteBuffer> files = new HashMap<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, '*' + EXTENSION)) {
+                for (Path path : stream) {
+                    if (!Files.isRegularFile(path)) continue;
+                    String name = path.getFileName().toString();
+                    files.put(name.substring(0, name.length() - EXTENSION.length()), Timeline.map(path));
+                }
+            }
+            return new SongLibrary(files);
+        }
+
+        /**
+         * Compiles a {@link #fromFile(Player, Supplier, Path) music script file} into the library's format.
+         *
+         * @param script the script file.
+         * @param output the compiled file.
+         * @see #parseFile(Path)
+         */
+        public static void compile(@Nonnull Path script, @Nonnull Path output) throws IOException {
+            parseFile(script).toTimeline().write(output);
+        }
+
+        /**
+         * @param name the file name of the song without the extension.
+         * @return the song, or null if there's no song with this name.
+         * @throws IllegalArgumentException if the file is not a valid compiled song.
+         */
+        @Nullable
+        public Timeline get(@Nonnull String name) {
+            return songs.computeIfAbsent(name, k -> {
+                ByteBuffer file = files.get(k);
+                return file == null ? null : Timeline.read(file);
+            });
+        }
+
+        @Nonnull
+        public Set<String> getNames() {
+            return Collections.unmodifiableSet(files.keySet());
+        }
+
+        public int size() {
+            return files.size();
+        }
+    }
+
+    /**
+     * A decoder for <a href="https://opennbs.org/nbs">Note Block Studio</a> ({@code .nbs}) songs, versions 0 to 5.
+     * The notes are decoded incrementally, so a song can be {@link #play(InputStream, Player, Supplier, boolean) played}
+     * in segments while the rest of it is still being decoded.
+     * <p>
+     * Only the vanilla instruments are supported, notes with custom instruments are ignored.
+     * Keys outside the note block range are moved by octaves to fit in the range.
+     * The volume of each note is its velocity, and for songs that are {@link #readAll() fully read},
+     * it's also multiplied by the volume of its layer. Layers are stored at the end of the file,
+     * so the layer volumes are not applied to songs that are played in segments.
+     *
+     * @since 12.0.0
+     */
+    public static final class NoteBlockStudio implements Closeable {
+        /**
+         * The instruments in the order that they're stored in the file.
+         */
+        private static final Instrument[] INSTRUMENTS = {
+                Instrument.PIANO, Instrument.BASS_GUITAR, Instrument.BASS_DRUM, Instrument.SNARE_DRUM,
+                Instrument.STICKS, Instrument.GUITAR, Instrument.FLUTE, Instrument.BELL, Instrument.CHIME,
+                Instrument.XYLOPHONE, Instrument.IRON_XYLOPHONE, Instrument.COW_BELL, Instrument.DIDGERIDOO,
+                Instrument.BIT, Instrument.BANJO, Instrument.PLING
+        };
+        /**
+         * F#3 to F#5 which is the range of note blocks.
+         */
+        private static final int MIN_KEY = 33, MAX_KEY = 57;
+
+        private final InputStream in;
+        private final int version, vanillaInstruments, layerCount;
+        private final String name, author, originalAuthor, description;
+        private final float tempo;
+        private final int length;
+
+        private int tick = -1;
+        /**
+         * The tick that was read but its notes belong to the next segment, or -1.
+         */
+        private int pendingTick = -1;
+        private int segmentEnd;
+        private boolean finished;
+        /**
+         * The layer of each note added to the builder, only used by {@link #readAll()} to apply the layer volumes.
+         */
+        @Nullable
+        private int[] layers;
+        /**
+         * The segment that's currently playing when the song is {@link #play(InputStream, Player, Supplier, boolean) played}
+         * while it's being decoded, so cancelling the song stops it.
+         */
+        @Nullable
+        private volatile Playback playback;
+
+        /**
+         * Reads the header of a song. The stream is only read when notes are requested after this.
+         *
+         * @param in the stream of the song, which should be closed using {@link #close()}.
+         */
+        public NoteBlockStudio(@Nonnull InputStream in) throws IOException {
+            this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in);
+
+            int length = readShort();
+            if (length == 0) {
+                this.version = readByte();
+                this.vanillaInstruments = readByte();
+                if (version >= 3) length = readShort();
+            } else {
+                // The original format without the version.
+                this.version = 0;
+                this.vanillaInstruments = 10;
+            }
+            this.length = length;
+            this.layerCount = readShort();
+            this.name = readString();
+            this.author = readString();
+            this.originalAuthor = readString();
+            this.description = readString();
+            this.tempo = readShort() / 100f;
+            if (tempo <= 0) throw new IOException("Invalid song tempo: " + tempo);
+
+            // Auto-saving, auto-saving duration, time signature, minutes spent,
+            // left clicks, right clicks, note blocks added and removed.
+            skip(1 + 1 + 1 + 4 + 4 + 4 + 4 + 4);
+            readString(); // Imported file name
+            if (version >= 4) skip(1 + 1 + 2); // Loop, max loop count and loop start tick
+        }
+
+        /**
+         * Fully reads a song file.
+         */
+        @Nonnull
+        public static Timeline read(@Nonnull Path path) throws IOException {
+            try (NoteBlockStudio song = new NoteBlockStudio(Files.newInputStream(path))) {
+                return song.readAll();
+            }
+        }
+
+        /**
+         * Plays a song while it's being decoded. The song is decoded and played in segments of a few seconds,
+         * and the next segment is decoded while the current one is playing.
+         *
+         * @param in             the stream of the song, which is closed when the song is finished.
+         * @param player         the player to play the notes to.
+         * @param location       the location to play the notes at.
+         * @param playAtLocation if true, everyone near the location can hear the notes, otherwise only the player.
+         * @return a future that completes when the music is finished, which can also be cancelled to stop the music.
+         */
+        @Nonnull
+        public static CompletableFuture<Void> play(@Nonnull InputStream in, @Nonnull Player player,
+                                                   @Nonnull Supplier<Location> location, boolean playAtLocation) {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            CompletableFuture<NoteBlockStudio> header = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return new NoteBlockStudio(in);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, Sequencer.IO);
+
+            header.whenComplete((song, ex) -> {
+                if (ex != null) {
+                    closeQuietly(in);
+                    result.completeExceptionally(ex);
+                } else {
+                    result.whenComplete((v, resultEx) -> {
+                        Playback playback = song.playback;
+                        if (playback != null && result.isCancelled()) playback.cancel();
+                    });
+                    song.playSegments(song.readSegmentAsync(), result, player, location, playAtLocation);
+                }
+            });
+            return result;
+        }
+
+        private void playSegments(CompletableFuture<Timeline> decoding, CompletableFuture<Void> result,
+                                  Player player, Supplier<Location> location, boolean playAtLocation) {
+            decoding.whenComplete((segment, ex) -> {
+                if (ex != null) result.completeExceptionally(ex);
+                else if (segment == null) result.complete(null);
+                if (result.isDone()) {
+                    playback = null;
+                    closeQuietly(this);
+                    return;
+                }
+
+                // Decode the next segment while this one is playing.
+                CompletableFuture<Timeline> next = readSegmentAsync();
+                Playback playback = this.playback = NoteBlockMusic.play(segment, player, location, playAtLocation);
+                // The song might've been cancelled before this segment was set as the current playback.
+                if (result.isCancelled()) playback.cancel();
+                playback.getCompletion().whenComplete((v, playbackEx) -> {
+                    if (playbackEx != null && !playback.getCompletion().isCancelled()) result.completeExceptionally(playbackEx);
+                    playSegments(next, result, player, location, playAtLocation);
+                });
+            });
+        }
+
+        private CompletableFuture<Timeline> readSegmentAsync() {
+            // Around 5 seconds of the song.
+            int ticks = Math.max(1, (int) (tempo * 5));
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readSegment(ticks);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, Sequencer.IO);
+        }
+
+        /**
+         * Reads the next segment of the song. The times of the notes are relative to the start of the segment,
+         * and the length of the segment is the time until the start of the next segment.
+         *
+         * @param ticks the maximum number of ticks to read.
+         * @return the next segment, or null if there are no more notes.
+         */
+        @Nullable
+        public Timeline readSegment(int ticks) throws IOException {
+            if (finished && pendingTick == -1) return null;
+
+            int start = segmentEnd;
+            int end = segmentEnd = start + ticks;
+            long startTime = getTime(start);
+            Timeline.Builder builder = new Timeline.Builder();
+
+            while (true) {
+                int currentTick;
+                if (pendingTick != -1) {
+                    currentTick = pendingTick;
+                    pendingTick = -1;
+                } else {
+                    currentTick = finished ? -1 : nextTick();
+                    if (currentTick == -1) {
+                        return builder.build(tick < start ? 0 : getTime(tick) - startTime);
+                    }
+                }
+
+                if (currentTick >= end) {
+                    pendingTick = currentTick;
+                    return builder.build(getTime(end) - startTime);
+                }
+
+                readNotes(builder, getTime(currentTick) - startTime);
+            }
+        }
+
+        /**
+         * Reads all the remaining notes and the layers of the song.
+         */
+        @Nonnull
+        public Timeline readAll() throws IOException {
+            if (tick != -1 || finished) throw new IllegalStateException("Song is already partially read");
+
+            Timeline.Builder builder = new Timeline.Builder();
+            layers = new int[64];
+            int currentTick;
+            while ((currentTick = nextTick()) != -1) {
+                readNotes(builder, getTime(currentTick));
+            }
+
+            float[] layerVolumes = new float[layerCount];
+            for (int i = 0; i < layerCount; i++) {
+                readString(); // Name
+                if (version >= 4) skip(1); // Lock
+                layerVolumes[i] = readByte() / 100f;
+                if (version >= 2) skip(1); // Stereo
+            }
+
+            // The notes are added in order, so they're not sorted by the builder yet.
+            for (int i = 0; i < builder.size; i++) {
+                int layer = layers[i];
+                if (layer < layerVolumes.length) builder.volumes[i] *= layerVolumes[layer];
+            }
+            return builder.build(tick == -1 ? 0 : getTime(tick));
+        }
+
+        /**
+         * @return the next tick that has notes, or -1 if there are no more notes.
+         */
+        private int nextTick() throws IOException {
+            int jump = readShort();
+            if (jump == 0) {
+                finished = true;
+                return -1;
+            }
+            return tick += jump;
+        }
+
+        private void readNotes(Timeline.Builder builder, long time) throws IOException {
+            int layer = -1;
+            int jump;
+            while ((jump = readShort()) != 0) {
+                layer += jump;
+                int instrument = readByte();
+                int key = readByte();
+                float velocity = 1;
+                int cents = 0;
+                if (version >= 4) {
+                    velocity = readByte() / 100f;
+                    skip(1); // Panning
+                    cents = (short) readShort();
+                }
+
+                if (instrument >= vanillaInstruments || instrument >= INSTRUMENTS.length) continue;
+                if (layers != null) {
+                    if (builder.size == layers.length) layers = Arrays.copyOf(layers, layers.length * 2);
+                    layers[builder.size] = layer;
+                }
+                builder.add(time, getSoundFromInstrument(INSTRUMENTS[instrument]), velocity, toPitch(key, cents));
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        private static float toPitch(int key, int cents) {
+            while (key < MIN_KEY) key += 12;
+            while (key > MAX_KEY) key -= 12;
+            if (cents == 0) return noteToPitch(new Note(key - MIN_KEY));
+            // Same as noteToPitch() but with the fine pitch.
+            return (float) Math.pow(2.0D, ((key - MIN_KEY - 12) + cents / 100.0D) / 12.0D);
+        }
+
+        private long getTime(int tick) {
+            return (long) (tick * 1000.0 / tempo);
+        }
+
+        private int readByte() throws IOException {
+            int value = in.read();
+            if (value == -1) throw new EOFException();
+            return value;
+        }
+
+        /**
+         * All the numbers are little-endian.
+         */
+        private int readShort() throws IOException {
+            return readByte() | (readByte() << 8);
+        }
+
+        private int readInt() throws IOException {
+            return readShort() | (readShort() << 16);
+        }
+
+        private String readString() throws IOException {
+            int length = readInt();
+            if (length < 0) throw new IOException("Invalid string length: " + length);
+            byte[] bytes = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int count = in.read(bytes, read, length - read);
+                if (count == -1) throw new EOFException();
+                read += count;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void skip(int bytes) throws IOException {
+            for (int i = 0; i < bytes; i++) readByte();
+        }
+
+        private static void closeQuietly(Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getAuthor() {
+            return author;
+        }
+
+        public String getOriginalAuthor() {
+            return originalAuthor;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return the number of ticks per second.
+         */
+        public float getTempo() {
+            return tempo;
+        }
+
+        /**
+         * @return the length of the song in ticks, which is 0 for versions 1 and 2 that don't store it.
+         */
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return "NoteBlockStudio:{name=" + name + ", author=" + author + ", version=" + version + ", tempo=" + tempo + '}';
+        }
+    }
+
+    /**
+     * A {@link Timeline} that is being played.
+     * All playbacks share a single sequencer thread which only wakes up when a note is due,
+     * so paused or waiting playbacks don't use any threads.
+     * <p>
+     * A playback is either for a single player, or a {@link NoteBlockMusic#broadcast(Timeline, Location, Collection) broadcast}
+     * where listeners can join and leave while the music is playing.
+     * <p>
+     * All the methods of this class are thread-safe.
+     *
+     * @since 12.0.0
+     */
+    public static final class Playback implements Runnable {
+        private static final Player[] NO_LISTENERS = new Player[0];
+
+        private final Timeline timeline;
+        @Nullable
+        private final Player player;
+        @Nullable
+        private final Supplier<Location> location;
+        private final boolean playAtLocation;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        /**
+         * The listeners of a broadcast, or null if this is for a single player.
+         * This array is never modified, it's replaced when a listener joins or leaves.
+         */
+        @Nullable
+        private volatile Player[] listeners;
+        /**
+         * The online {@link #listeners} and their locations for the notes that are played together.
+         */
+        private Player[] onlineListeners = NO_LISTENERS;
+        private Location[] listenerLocations = new Location[0];
+
+        /**
+         * The index of the next note to play.
+         */
+        private int cursor;
+        /**
+         * The index of the next {@link Timeline#instructions instruction} to play.
+         */
+        private int instructionCursor;
+        /**
+         * The {@link System#nanoTime()} that the timeline would've started at if it was never paused.
+         */
+        private long startNanos;
+        /**
+         * The position in milliseconds when paused, or -1 if it's playing.
+         */
+        private long pausedAt;
+        @Nullable
+        private ScheduledFuture<?> next;
+
+        private Playback(Timeline timeline, Player player, Supplier<Location> location, boolean playAtLocation) {
+            this.timeline = Objects.requireNonNull(timeline, "Cannot play null timeline");
+            this.player = Objects.requireNonNull(player, "Cannot play music to null player");
+            this.location = Objects.requireNonNull(location, "Cannot play music at null location");
+            this.playAtLocation = playAtLocation;
+            this.completion.whenComplete((v, ex) -> {
+                if (completion.isCancelled()) cancel();
+            });
+        }
+
+        private Playback(Timeline timeline, @Nullable Location location, Collection<Player> listeners) {
+            this.timeline = Objects.requireNonNull(timeline, "Cannot play null timeline");
+            this.player = null;
+            this.location = location == null ? null : () -> location;
+            this.playAtLocation = false;
+            this.listeners = listeners.toArray(NO_LISTENERS);
+            this.completion.whenComplete((v, ex) -> {
+                if (completion.isCancelled()) cancel();
+            });
+        }
+
+        public boolean isBroadcast() {
+            return listeners != null;
+        }
+
+        /**
+         * Adds a listener to this broadcast. The listener hears the music from its current position.
+         *
+         * @return true if the player was not already a listener.
+         * @throws IllegalStateException if this is not a broadcast.
+         */
+        public synchronized boolean addListener(@Nonnull Player player) {
+            Objects.requireNonNull(player, "Cannot add null listener");
+            Player[] listeners = getListenersArray();
+            for (Player listener : listeners) {
+                if (listener == player) return false;
+            }
+
+            Player[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+            newListeners[listeners.length] = player;
+            this.listeners = newListeners;
+            return true;
+        }
+
+        /**
+         * Removes a listener from this broadcast.
+         *
+         * @return true if the player was a listener.
+         * @throws IllegalStateException if this is not a broadcast.
+         */
+        public synchronized boolean removeListener(@Nonnull Player player) {
+            Player[] listeners = getListenersArray();
+            for (int i = 0; i < listeners.length; i++) {
+                if (listeners[i] != player) continue;
+
+                Player[] newListeners = new Player[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, i);
+                System.arraycopy(listeners, i + 1, newListeners, i, newListeners.length - i);
+                this.listeners = newListeners;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return a snapshot of the listeners of this broadcast.
+         * @throws IllegalStateException if this is not a broadcast.
+         */
+        @Nonnull
+        public List<Player> getListeners() {
+            return Collections.unmodifiableList(Arrays.asList(getListenersArray()));
+        }
+
+        private Player[] getListenersArray() {
+            Player[] listeners = this.listeners;
+            if (listeners == null) throw new IllegalStateException("Not a broadcast playback: " + this);
+            return listeners;
+        }
+
+        /**
+         * @return the future that completes when the music is finished or cancelled.
+         */
+        @Nonnull
+        public CompletableFuture<Void> getCompletion() {
+            return completion;
+        }
+
+        @Nonnull
+        public Timeline getTimeline() {
+            return timeline;
+        }
+
+        /**
+         * @return the current position of the music in milliseconds.
+         */
+        public synchronized long getPosition() {
+            if (pausedAt != -1) return pausedAt;
+            return Math.min(timeline.length, (System.nanoTime() - startNanos) / 1_000_000L);
+        }
+
+        public synchronized boolean isPaused() {
+            return pausedAt != -1 && !isDone();
+        }
+
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        /**
+         * Pauses the music at its current position. Does nothing if the music is already paused.
+         */
+        public synchronized void pause() {
+            if (pausedAt != -1 || isDone()) return;
+            pausedAt = getPosition();
+            unschedule();
+        }
+
+        /**
+         * Continues playing the music from its current position. Does nothing if the music is already playing.
+         */
+        public synchronized void resume() {
+            if (pausedAt == -1 || isDone()) return;
+            startNanos = System.nanoTime() - pausedAt * 1_000_000L;
+            pausedAt = -1;
+            schedule();
+        }
+
+        /**
+         * Moves the music to the given position. Notes that are skipped are not played.
+         *
+         * @param position the position in milliseconds.
+         */
+        public synchronized void seek(long position) {
+            if (isDone()) return;
+            position = Math.max(0, Math.min(position, timeline.length));
+            cursor = timeline.indexAt(position);
+            instructionCursor = timeline.instructionIndexAt(position);
+
+            if (pausedAt != -1) {
+                pausedAt = position;
+            } else {
+                startNanos = System.nanoTime() - position * 1_000_000L;
+                unschedule();
+                schedule();
+            }
+        }
+
+        /**
+         * Stops the music permanently.
+         */
+        public void cancel() {
+            synchronized (this) {
+                unschedule();
+            }
+            completion.cancel(false);
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (pausedAt != -1 || isDone()) return;
+                next = null;
+
+                long position = getPosition();
+                try {
+                    if (cursor < timeline.size && timeline.getTime(cursor) <= position) {
+                        if (listeners != null) {
+                            broadcast(position);
+                        } else {
+                            Location finalLocation = location.get();
+                            while (cursor < timeline.size && timeline.getTime(cursor) <= position) {
+                                timeline.play(cursor++, player, finalLocation, playAtLocation);
+                            }
+                        }
+                    }
+                    while (instructionCursor < timeline.instructions.length && timeline.instructionTimes[instructionCursor] <= position) {
+                        playInstruction(timeline.instructions[instructionCursor++]);
+                    }
+                } catch (Throwable ex) {
+                    completion.completeExceptionally(ex);
+                    return;
+                }
+
+                if (cursor < timeline.size || instructionCursor < timeline.instructions.length || position < timeline.length) {
+                    schedule();
+                    return;
+                }
+            }
+            completion.complete(null);
+        }
+
+        /**
+         * Plays all the notes that are due to all the listeners.
+         * The location of each listener is only checked once for all these notes.
+         */
+        private void broadcast(long position) {
+            Player[] listeners = this.listeners;
+            if (onlineListeners.length < listeners.length) {
+                onlineListeners = new Player[listeners.length];
+                listenerLocations = new Location[listeners.length];
+            }
+
+            int count = 0;
+            for (Player listener : listeners) {
+                if (!listener.isOnline()) {
+                    removeListener(listener);
+                    continue;
+                }
+                onlineListeners[count] = listener;
+                listenerLocations[count++] = location == null ? listener.getLocation() : location.get();
+            }
+
+            while (cursor < timeline.size && timeline.getTime(cursor) <= position) {
+                int note = cursor++;
+                XSound xSound = timeline.getSound(note);
+                org.bukkit.Sound sound = xSound == null ? null : xSound.parseSound();
+                if (sound == null) continue;
+
+                float volume = timeline.getVolume(note), pitch = timeline.getPitch(note);
+                for (int i = 0; i < count; i++) {
+                    onlineListeners[i].playSound(listenerLocations[i], sound, volume, pitch);
+                }
+            }
+
+            // Don't keep the players or their worlds loaded.
+            Arrays.fill(onlineListeners, 0, count, null);
+            Arrays.fill(listenerLocations, 0, count, null);
+        }
+
+        /**
+         * Custom instructions block their thread for all their delays, so they're played by
+         * {@link Sequencer#INSTRUCTIONS} instead of the sequencer. Once started, they can't be paused or cancelled.
+         * A broadcast plays each instruction once, to a {@link #broadcastPlayer()} that sends its sounds to all the listeners.
+         */
+        private void playInstruction(Instruction instruction) {
+            Runnable play;
+            if (listeners == null) {
+                play = () -> instruction.play(player, location, playAtLocation);
+            } else {
+                Supplier<Location> broadcastLocation = location == null ? this::getFirstListenerLocation : location;
+                play = () -> instruction.play(broadcastPlayer(), broadcastLocation, false);
+            }
+
+            CompletableFuture.runAsync(play, Sequencer.INSTRUCTIONS).whenComplete((v, ex) -> {
+                if (ex != null) completion.completeExceptionally(ex.getCause() == null ? ex : ex.getCause());
+            });
+        }
+
+        /**
+         * Custom instructions of a broadcast without a location get the location of a listener,
+         * but their sounds are still played at the location of each listener.
+         */
+        @Nullable
+        private Location getFirstListenerLocation() {
+            Player[] listeners = this.listeners;
+            for (Player listener : listeners) {
+                if (listener.isOnline()) return listener.getLocation();
+            }
+            return null;
+        }
+
+        /**
+         * A player that sends all the sounds played to it to the current listeners of this broadcast,
+         * and stops sending them once the broadcast is done. Any other method is not supported.
+         */
+        private Player broadcastPlayer() {
+            return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class[]{Player.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "BroadcastPlayer:{" + this + '}';
+                    case "playSound":
+                    case "playNote":
+                    case "stopSound":
+                        if (isDone()) return null;
+                        for (Player listener : listeners) {
+                            if (!listener.isOnline()) continue;
+                            Object[] listenerArgs = args;
+                            if (location == null && args[0] instanceof Location) {
+                                listenerArgs = args.clone();
+                                listenerArgs[0] = listener.getLocation();
+                            }
+                            try {
+                                method.invoke(listener, listenerArgs);
+                            } catch (InvocationTargetException ex) {
+                                throw ex.getCause();
+                            }
+                        }
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException("Custom instructions of a broadcast can only play sounds: " + method);
+                }
+            });
+        }
+
+        private void schedule() {
+            long position = (System.nanoTime() - startNanos) / 1_000_000L;
+            long due = cursor < timeline.size ? timeline.getTime(cursor) : timeline.length;
+            if (instructionCursor < timeline.instructions.length) due = Math.min(due, timeline.instructionTimes[instructionCursor]);
+            next = Sequencer.EXECUTOR.schedule(this, Math.max(0, due - position), TimeUnit.MILLISECONDS);
+        }
+
+        private void unschedule() {
+            if (next != null) {
+                next.cancel(false);
+                next = null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            String target = player == null ? "listeners=" + listeners.length : "player=" + player.getName();
+            return "Playback:{timeline=" + timeline + ", " + target + ", position=" + getPosition() + '}';
+        }
+    }
+
+    /**
+     * The single thread shared by all {@link Playback}s. Sounds are thread-safe.
+     * Everything that blocks has its own pool, so it can't delay the notes.
+     */
+    private static final class Sequencer {
+        private static final ScheduledThreadPoolExecutor EXECUTOR;
+        /**
+         * Plays the {@link Timeline.Builder#addInstruction(long, Instruction) instructions} that couldn't be compiled,
+         * which sleep for all their delays. It only has threads while such instructions are playing.
+         */
+        private static final ExecutorService INSTRUCTIONS;
+        /**
+         * Reads the songs from files and streams, so the blocking reads don't use the common pool or the sequencer.
+         */
+        private static final ExecutorService IO;
+
+        static {
+            EXECUTOR = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "XSeries NoteBlockMusic Sequencer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Paused and cancelled playbacks shouldn't stay in the queue.
+            EXECUTOR.setRemoveOnCancelPolicy(true);
+
+            INSTRUCTIONS = newCachedPool("XSeries NoteBlockMusic Instruction-");
+            IO = newCachedPool("XSeries NoteBlockMusic IO-");
+        }
+
+        private static ExecutorService newCachedPool(String name) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, name + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
 }
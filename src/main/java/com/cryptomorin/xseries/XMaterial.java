@@ -23,8 +23,6 @@
 package com.cryptomorin.xseries;
 
 import com.google.common.base.Enums;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
@@ -35,7 +33,6 @@ import org.jetbrains.annotations.ApiStatus;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -1677,19 +1674,23 @@ public enum XMaterial /* implements com.cryptomorin.xseries.abstractions.Materia
     private static final Map<String, XMaterial> NAMES = new HashMap<>();
 
     /**
-     * Guava (Google Core Libraries for Java)'s cache for performance and timed caches.
-     * For strings that match a certain XMaterial. Mostly cached for configs.
+     * An index of all the legacy names to the XMaterials that use them.
+     * The array is indexed by the data value shifted by one, so that index {@code 0}
+     * holds the first XMaterial that uses this legacy name regardless of its data value
+     * (for {@link #UNKNOWN_DATA_VALUE}) and index {@code data + 1} holds the XMaterial with that exact data value.
+     * <p>
+     * Materials are indexed in the same order as {@link #VALUES} so the first declared material
+     * always takes priority, just like a linear search would.
      *
-     * @since 1.0.0
+     * @see #requestOldXMaterial(String, byte)
+     * @since 12.0.0
      */
-    private static final Cache<String, XMaterial> NAME_CACHE = CacheBuilder.newBuilder()
-            .expireAfterAccess(1, TimeUnit.HOURS)
-            .build();
+    private static final Map<String, XMaterial[]> LEGACY_NAMES = new HashMap<>(512);
     /**
      * The maximum data value in the pre-flattening update which belongs to {@link #VILLAGER_SPAWN_EGG}<br>
      * <a href="https://minecraftitemids.com/types/spawn-egg">Spawn Eggs</a>
      *
-     * @see #matchXMaterialWithData(String)
+     * @see #matchXMaterialOrNull(CharSequence)
      * @since 8.0.0
      */
     private static final byte MAX_DATA_VALUE = 120;
@@ -1718,11 +1719,29 @@ public enum XMaterial /* implements com.cryptomorin.xseries.abstractions.Materia
      * @since 3.0.0
      */
     private static final Set<String> DUPLICATED;
-
     static {
         for (XMaterial material : VALUES) NAMES.put(material.name(), material);
     }
 
+    static {
+        for (XMaterial material : VALUES) {
+            int index = material.data + 1;
+            for (String legacy : material.legacy) {
+                XMaterial[] variants = LEGACY_NAMES.get(legacy);
+                if (variants == null) {
+                    variants = new XMaterial[index + 1];
+                    LEGACY_NAMES.put(legacy, variants);
+                } else if (variants.length <= index) {
+                    variants = Arrays.copyOf(variants, index + 1);
+                    LEGACY_NAMES.put(legacy, variants);
+                }
+
+                if (variants[0] == null) variants[0] = material;
+                if (variants[index] == null) variants[index] = material;
+            }
+        }
+    }
+
     static {
         if (Data.ISFLAT) {
             // It's not needed at all if it's the newer version. We can save some memory.
@@ -1805,26 +1824,35 @@ public enum XMaterial /* implements com.cryptomorin.xseries.abstractions.Materia
 
     /**
      * When using 1.13+, this helps to find the old material name
-     * with its data value using a cached search for optimization.
+     * with its data value using the precomputed {@link #LEGACY_NAMES} index.
      *
      * @see #matchDefinedXMaterial(String, byte)
      * @since 1.0.0
      */
     @Nullable
     private static XMaterial requestOldXMaterial(@Nonnull String name, byte data) {
-        String holder = name + data;
-        XMaterial cache = NAME_CACHE.getIfPresent(holder);
-        if (cache != null) return cache;
+        // Not checking the enum name itself is intended.
+        XMaterial[] variants = LEGACY_NAMES.get(name);
+        if (variants == null) return null;
 
-        for (XMaterial material : VALUES) {
-            // Not using material.name().equals(name) check is intended.
-            if ((data == UNKNOWN_DATA_VALUE || data == material.data) && material.anyMatchLegacy(name)) {
-                NAME_CACHE.put(holder, material);
-                return material;
-            }
-        }
+        // Data values other than UNKNOWN_DATA_VALUE can't be negative, those simply don't match anything.
+        int index = data + 1;
+        return index >= 0 && index < variants.length ? variants[index] : null;
+    }
 
-        return null;
+    /**
+     * Parses the given material name as an XMaterial with a given data
+     * value in the string if attached. Check {@link #matchXMaterialOrNull(CharSequence)} for more info.
+     *
+     * @see #matchXMaterialOrNull(CharSequence)
+     * @see #matchDefinedXMaterial(String, byte)
+     * @since 2.0.0
+     */
+    @Nonnull
+    public static Optional<XMaterial> matchXMaterial(@Nonnull String name) {
+        if (name == null || name.isEmpty())
+            throw new IllegalArgumentException("Cannot match a material with null or empty material name");
+        return Optional.ofNullable(matchXMaterialOrNull(name));
     }
 
     /**
@@ -1832,48 +1860,50 @@ public enum XMaterial /* implements com.cryptomorin.xseries.abstractions.Materia
      * The separator for the material name and its data value is {@code :}
      * Spaces are allowed. Mostly used when getting materials from config for old school minecrafters.
      * <p>
+     * Unlike {@link #matchXMaterial(String)} this works directly on the given characters
+     * without allocating any objects. This is useful for frequently matched strings such as
+     * tab-completion of commands and loading large configs.
+     * <p>
      * <b>Examples</b>
      * <p><pre>
-     *     {@code INK_SACK:1 -> RED_DYE}
-     *     {@code WOOL: 14  -> RED_WOOL}
+     *     {@code "diamond sword" -> DIAMOND_SWORD}
+     *     {@code "INK_SACK:1"    -> RED_DYE}
+     *     {@code "wool: 14"      -> RED_WOOL}
      * </pre>
      *
-     * @param name the material string that consists of the material name, data and separator character.
-     * @return the parsed XMaterial.
+     * @param name the material name with an optional data value separated by {@code :}
+     * @return the matched XMaterial, or null if none.
      * @see #matchXMaterial(String)
-     * @since 3.0.0
+     * @since 12.0.0
      */
-    @Nonnull
-    private static Optional<XMaterial> matchXMaterialWithData(@Nonnull String name) {
-        int index = name.indexOf(':');
-        if (index != -1) {
-            String mat = format(name.substring(0, index));
-            try {
-                // We don't use Byte.parseByte because we have our own range check.
-                byte data = (byte) Integer.parseInt(name.substring(index + 1).replace(" ", ""));
-                return data >= 0 && data < MAX_DATA_VALUE ? matchDefinedXMaterial(mat, data) : matchDefinedXMaterial(mat, UNKNOWN_DATA_VALUE);
-            } catch (NumberFormatException ignored) {
-                return matchDefinedXMaterial(mat, UNKNOWN_DATA_VALUE);
+    @Nullable
+    public static XMaterial matchXMaterialOrNull(@Nonnull CharSequence name) {
+        if (name == null || name.length() == 0)
+            throw new IllegalArgumentException("Cannot match a material with null or empty material name");
+
+        int len = name.length();
+        int separator = -1;
+        for (int i = 0; i < len; i++) {
+            if (name.charAt(i) == ':') {
+                separator = i;
+                break;
             }
         }
 
-        return Optional.empty();
-    }
+        if (separator != -1) {
+            XMaterial[] resolved = lookupName(name, 0, separator);
+            if (resolved != null) {
+                // We don't use Byte.parseByte because we have our own range check.
+                int data = parseData(name, separator + 1, len);
+                XMaterial material;
+                if (data >= 0 && data < MAX_DATA_VALUE) material = resolved[Math.min(data + 1, resolved.length - 1)];
+                else material = resolved[0];
+                if (material != null) return material;
+            }
+        }
 
-    /**
-     * Parses the given material name as an XMaterial with a given data
-     * value in the string if attached. Check {@link #matchXMaterialWithData(String)} for more info.
-     *
-     * @see #matchXMaterialWithData(String)
-     * @see #matchDefinedXMaterial(String, byte)
-     * @since 2.0.0
-     */
-    @Nonnull
-    public static Optional<XMaterial> matchXMaterial(@Nonnull String name) {
-        if (name == null || name.isEmpty())
-            throw new IllegalArgumentException("Cannot match a material with null or empty material name");
-        Optional<XMaterial> oldMatch = matchXMaterialWithData(name);
-        return oldMatch.isPresent() ? oldMatch : matchDefinedXMaterial(format(name), UNKNOWN_DATA_VALUE);
+        XMaterial[] resolved = lookupName(name, 0, len);
+        return resolved == null ? null : resolved[0];
     }
 
     /**
@@ -1887,6 +1917,9 @@ public enum XMaterial /* implements com.cryptomorin.xseries.abstractions.Materia
     @Nonnull
     public static XMaterial matchXMaterial(@Nonnull Material material) {
         Objects.requireNonNull(material, "Cannot match null material");
+        XMaterial xMaterial = ReverseLookup.MATERIALS[material.ordinal()];
+        if (xMaterial != null) return xMaterial;
+
         return matchDefinedXMaterial(material.name(), UNKNOWN_DATA_VALUE)
                 .orElseThrow(() -> new IllegalArgumentException("Unsupported material with no data value: " + material.name()));
     }
@@ -1905,12 +1938,26 @@ public enum XMaterial /* implements com.cryptomorin.xseries.abstractions.Materia
     @SuppressWarnings("deprecation")
     public static XMaterial matchXMaterial(@Nonnull ItemStack item) {
         Objects.requireNonNull(item, "Cannot match null ItemStack");
-        String material = item.getType().name();
+        Material type = item.getType();
+        String material = type.name();
 
         // 1.13+ doesn't use data values at all.
         // Maps are given different data values for different parts of the map also some plugins use negative values for custom images.
         // Items that have durability, such as armor and tools don't use the data value to distinguish their material.
-        byte data = (byte) (Data.ISFLAT || material.equals("MAP") || item.getType().getMaxDurability() > 0 ? 0 : item.getDurability());
+        byte data = (byte) (Data.ISFLAT || material.equals("MAP") || type.getMaxDurability() > 0 ? 0 : item.getDurability());
+
+        // Only a few special cases need more than a simple table lookup, these are all handled below.
+        // Note that the version checks are intentionally done first since they're much cheaper than string comparisons.
+        // The 1.13 dye renames are already handled by the table itself.
+        boolean special = (supports(9) && !supports(13) && material.equals("MONSTER_EGG")) ||
+                (!supports(9) && material.equals("POTION"));
+        if (!special && data >= 0) {
+            XMaterial[] variants = ReverseLookup.DATA_VARIANTS[type.ordinal()];
+            if (data < variants.length) {
+                XMaterial xMaterial = variants[data];
+                if (xMaterial != null) return xMaterial;
+            }
+        }
 
         // Versions 1.9-1.12 didn't really use the items data value.
         if (supports(9) && !supports(13) && item.hasItemMeta() && material.equals("MONSTER_EGG")) {
@@ -2047,6 +2094,121 @@ public enum XMaterial /* implements com.cryptomorin.xseries.abstractions.Materia
         return new String(chs, 0, count);
     }
 
+    /**
+     * Finds the pre-resolved XMaterials of the given material name as if it was {@link #format(String) formatted}.
+     *
+     * @param name  the unformatted name.
+     * @param start the start index of the name (inclusive)
+     * @param end   the end index of the name (exclusive)
+     * @return an element of {@link NameLookup#RESOLVED_NAMES} or null if no such name exists.
+     * @since 12.0.0
+     */
+    @Nullable
+    private static XMaterial[] lookupName(@Nonnull CharSequence name, int start, int end) {
+        // This must produce the same result as String#hashCode() for format(name)
+        int hash = 0;
+        boolean empty = true, appendUnderline = false;
+        for (int i = start; i < end; i++) {
+            char ch = name.charAt(i);
+            if (!appendUnderline && !empty && (ch == '-' || ch == ' ' || ch == '_')) {
+                appendUnderline = true;
+            } else {
+                char formatted = formatChar(ch);
+                if (formatted == 0) continue;
+                if (appendUnderline) {
+                    hash = 31 * hash + '_';
+                    appendUnderline = false;
+                }
+                hash = 31 * hash + formatted;
+                empty = false;
+            }
+        }
+        if (empty) return null;
+
+        String[] keys = NameLookup.NAME_KEYS;
+        int mask = keys.length - 1;
+        for (int index = spreadHash(hash) & mask; ; index = (index + 1) & mask) {
+            String key = keys[index];
+            if (key == null) return null;
+            if (key.hashCode() == hash && formattedEquals(name, start, end, key)) return NameLookup.RESOLVED_NAMES[index];
+        }
+    }
+
+    /**
+     * Checks if the given range of characters would be equal to the given key when {@link #format(String) formatted}.
+     *
+     * @since 12.0.0
+     */
+    private static boolean formattedEquals(@Nonnull CharSequence name, int start, int end, @Nonnull String key) {
+        int count = 0, keyLen = key.length();
+        boolean appendUnderline = false;
+        for (int i = start; i < end; i++) {
+            char ch = name.charAt(i);
+            if (!appendUnderline && count != 0 && (ch == '-' || ch == ' ' || ch == '_')) {
+                appendUnderline = true;
+            } else {
+                char formatted = formatChar(ch);
+                if (formatted == 0) continue;
+                if (appendUnderline) {
+                    if (count == keyLen || key.charAt(count++) != '_') return false;
+                    appendUnderline = false;
+                }
+                if (count == keyLen || key.charAt(count++) != formatted) return false;
+            }
+        }
+        return count == keyLen;
+    }
+
+    /**
+     * Converts a character to the form used by {@link #format(String)}
+     *
+     * @return the uppercase form of English letters, the same character for digits or {@code 0} if it should be ignored.
+     * @since 12.0.0
+     */
+    private static char formatChar(char ch) {
+        if (ch >= '0' && ch <= '9') return ch;
+        if ((ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z')) return (char) (ch & 0x5f);
+        return 0;
+    }
+
+    /**
+     * Parses the data value in the given range similar to {@link Integer#parseInt(String)} but spaces are ignored.
+     *
+     * @return the parsed number as a byte (just like a cast) or {@link #UNKNOWN_DATA_VALUE} if it's not a valid integer.
+     * @since 12.0.0
+     */
+    private static int parseData(@Nonnull CharSequence str, int start, int end) {
+        long number = 0;
+        boolean negative = false, signed = false, digits = false;
+        for (int i = start; i < end; i++) {
+            char ch = str.charAt(i);
+            if (ch == ' ') continue;
+            if (!signed && !digits && (ch == '-' || ch == '+')) {
+                negative = ch == '-';
+                signed = true;
+                continue;
+            }
+
+            int digit = Character.digit(ch, 10);
+            if (digit < 0) return UNKNOWN_DATA_VALUE;
+            number = number * 10 + digit;
+            if (number > Integer.MAX_VALUE + 1L) return UNKNOWN_DATA_VALUE;
+            digits = true;
+        }
+
+        if (!digits) return UNKNOWN_DATA_VALUE;
+        if (negative) number = -number;
+        if (number > Integer.MAX_VALUE) return UNKNOWN_DATA_VALUE;
+        return (byte) number;
+    }
+
+    /**
+     * Spreads the higher bits of a hash to the lower bits, same as {@link HashMap}.
+     */
+    private static int spreadHash(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
     /**
      * This is an internal API. Use {@link com.cryptomorin.xseries.reflection.XReflection#supports(int)} instead.
      * Checks if the specified version is the same version or higher than the current server version.
@@ -2090,21 +2252,6 @@ public enum XMaterial /* implements com.cryptomorin.xseries.abstractions.Materia
         return item;
     }
 
-    /**
-     * Checks if the given material name matches any of this xmaterial's legacy material names.
-     * All the values passed to this method will not be null or empty and are formatted correctly.
-     *
-     * @param name the material name to check.
-     * @return true if it's one of the legacy names, otherwise false.
-     * @since 2.0.0
-     */
-    private boolean anyMatchLegacy(@Nonnull String name) {
-        for (int i = this.legacy.length - 1; i >= 0; i--) {
-            if (name.equals(this.legacy[i])) return true;
-        }
-        return false;
-    }
-
     /**
      * Parses an enum name to a user-friendly name.
      * These names will have underlines removed and with each word capitalized.
@@ -2298,6 +2445,128 @@ public enum XMaterial /* implements com.cryptomorin.xseries.abstractions.Materia
         }
     }
 
+    /**
+     * Reverse lookup tables for Bukkit materials. These are only built once one of the
+     * methods that need them are used for the first time, since plugins that only use
+     * XMaterial to parse materials shouldn't have to pay for them during startup.
+     *
+     * @since 12.0.0
+     */
+    private static final class ReverseLookup {
+        /**
+         * A reverse lookup table for {@link XMaterial#matchXMaterial(Material)} indexed by {@link Material#ordinal()}.
+         * Elements are {@code null} for materials that are not supported by XMaterial, which are then
+         * handled by the normal matching process to produce a proper error.
+         *
+         * @since 12.0.0
+         */
+        private static final XMaterial[] MATERIALS;
+        /**
+         * A reverse lookup table for {@link XMaterial#matchXMaterial(ItemStack)} indexed by {@link Material#ordinal()}
+         * and then the data value of the item. In versions after the flattening update {@link Data#ISFLAT}
+         * each row only contains the XMaterial for the data value {@code 0}.
+         * <p>
+         * Data values that don't fit in a row and {@code null} elements are resolved using the normal matching process.
+         *
+         * @since 12.0.0
+         */
+        private static final XMaterial[][] DATA_VARIANTS;
+
+        static {
+            Material[] materials = Material.values();
+            MATERIALS = new XMaterial[materials.length];
+            DATA_VARIANTS = new XMaterial[materials.length][];
+
+            for (Material material : materials) {
+                String name = material.name();
+                int ordinal = material.ordinal();
+                MATERIALS[ordinal] = matchDefinedXMaterial(name, UNKNOWN_DATA_VALUE).orElse(null);
+
+                // Only legacy names can have more than one data value.
+                int maxData = 0;
+                if (!Data.ISFLAT) {
+                    XMaterial[] variants = LEGACY_NAMES.get(name);
+                    if (variants != null) maxData = variants.length - 2;
+                }
+
+                XMaterial[] row = new XMaterial[maxData + 1];
+                for (int data = 0; data <= maxData; data++) {
+                    row[data] = matchDefinedXMaterial(name, (byte) data).orElse(null);
+                }
+
+                // Refer to matchXMaterial(ItemStack) for the special 1.13 dye names.
+                if (supports(13) && !supports(14)) {
+                    switch (name) {
+                        case "CACTUS_GREEN":
+                            row[0] = GREEN_DYE;
+                            break;
+                        case "ROSE_RED":
+                            row[0] = RED_DYE;
+                            break;
+                        case "DANDELION_YELLOW":
+                            row[0] = YELLOW_DYE;
+                            break;
+                    }
+                }
+                DATA_VARIANTS[ordinal] = row;
+            }
+        }
+    }
+
+    /**
+     * The lookup table used for matching strings. Only built once a string is matched for the first time.
+     *
+     * @since 12.0.0
+     */
+    private static final class NameLookup {
+        /**
+         * An open addressing hash table of all the enum names and legacy names used by
+         * {@link XMaterial#matchXMaterialOrNull(CharSequence)} to match unformatted strings without allocating anything.
+         * The hashes are the same as {@link String#hashCode()} of the {@link XMaterial#format(String) formatted} names
+         * which allows them to be computed while formatting the raw string.
+         *
+         * @see #RESOLVED_NAMES
+         * @since 12.0.0
+         */
+        private static final String[] NAME_KEYS;
+        /**
+         * The pre-resolved XMaterials of each element in {@link #NAME_KEYS} with the same index.
+         * The first element is for {@link XMaterial#UNKNOWN_DATA_VALUE}, the next elements are for each
+         * data value starting from {@code 0} and the last element is for any other greater data value.
+         *
+         * @since 12.0.0
+         */
+        private static final XMaterial[][] RESOLVED_NAMES;
+
+        static {
+            Set<String> names = new HashSet<>(NAMES.keySet());
+            names.addAll(LEGACY_NAMES.keySet());
+
+            int capacity = Integer.highestOneBit(names.size() * 2 - 1) << 1;
+            NAME_KEYS = new String[capacity];
+            RESOLVED_NAMES = new XMaterial[capacity][];
+
+            for (String name : names) {
+                // Every data value that's greater than the ones used by the legacy names resolve to the same result.
+                // The data value 0 is always included since it's treated differently than other data values.
+                int maxData = 0;
+                XMaterial[] variants = LEGACY_NAMES.get(name);
+                if (variants != null) maxData = Math.max(0, variants.length - 2);
+
+                XMaterial[] resolved = new XMaterial[maxData + 3];
+                resolved[0] = matchDefinedXMaterial(name, UNKNOWN_DATA_VALUE).orElse(null);
+                for (int data = 0; data <= maxData + 1; data++) {
+                    resolved[data + 1] = matchDefinedXMaterial(name, (byte) data).orElse(null);
+                }
+
+                int index = spreadHash(name.hashCode()) & (capacity - 1);
+                while (NAME_KEYS[index] != null) index = (index + 1) & (capacity - 1);
+                NAME_KEYS[index] = name;
+                RESOLVED_NAMES[index] = resolved;
+            }
+        }
+    }
+
     /**
      * Used for data that need to be accessed during enum initialization.
      *
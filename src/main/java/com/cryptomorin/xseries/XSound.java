@@ -21,25 +21,48 @@
  */
 package com.cryptomorin.xseries;
 
+import com.cryptomorin.xseries.reflection.minecraft.MinecraftClassHandle;
+import com.cryptomorin.xseries.reflection.minecraft.MinecraftConnection;
+import com.cryptomorin.xseries.reflection.minecraft.MinecraftMapping;
+import com.cryptomorin.xseries.reflection.minecraft.MinecraftPackage;
 import com.google.common.base.Enums;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.SoundCategory;
+import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
 import org.jetbrains.annotations.Unmodifiable;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
-import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
+import static com.cryptomorin.xseries.reflection.XReflection.of;
+import static com.cryptomorin.xseries.reflection.XReflection.ofMinecraft;
+
 /**
  * <b>XSound</b> - Universal Minecraft Sound Support<br>
  * 1.13 and above as priority.
@@ -1714,10 +1737,40 @@ public enum XSound {
      * @since 10.2.0
      */
     @Unmodifiable
-    public static final Set<XSound> MUSIC = Collections.unmodifiableSet(EnumSet.copyOf(Arrays.stream(VALUES)
-            .filter(x -> x.name().startsWith("MUSIC"))
-            .collect(Collectors.toList())
-    ));
+    public static final Set<XSound> MUSIC;
+
+    static {
+        // Not using streams here since this is loaded when the class is first used.
+        EnumSet<XSound> music = EnumSet.noneOf(XSound.class);
+        for (XSound sound : VALUES) {
+            if (sound.name().startsWith("MUSIC")) music.add(sound);
+        }
+        MUSIC = Collections.unmodifiableSet(music);
+    }
+
+    /**
+     * All the names and legacy names of the sounds. This is copied from {@link Data#NAMES} after all
+     * the sounds are initialized and never changes, so it's safe to read from any thread.
+     *
+     * @since 12.0.0
+     */
+    private static final Map<String, XSound> NAMES;
+    /**
+     * Used instead of {@link Enums#getIfPresent(Class, String)} which locks a shared cache.
+     *
+     * @since 12.0.0
+     */
+    private static final Map<String, Category> CATEGORIES;
+
+    static {
+        NAMES = ImmutableMap.copyOf(Data.NAMES);
+        Data.NAMES.clear();
+        Data.BUKKIT_NAMES.clear();
+
+        ImmutableMap.Builder<String, Category> categories = ImmutableMap.builder();
+        for (Category category : Category.values()) categories.put(category.name(), category);
+        CATEGORIES = categories.build();
+    }
 
     public static final float DEFAULT_VOLUME = 1.0f, DEFAULT_PITCH = 1.0f;
     public static final Pattern NAMESPACED_SOUND_PATTERN = Pattern.compile("(?<namespace>[a-z0-9._-]+):(?<key>[a-z0-9/._-]+)");
@@ -1829,7 +1882,7 @@ public enum XSound {
     public static Optional<XSound> matchXSound(@Nonnull String sound) {
         if (sound == null || sound.isEmpty())
             throw new IllegalArgumentException("Cannot match XSound of a null or empty sound name");
-        return Optional.ofNullable(Data.NAMES.get(format(sound)));
+        return Optional.ofNullable(NAMES.get(format(sound)));
     }
 
     /**
@@ -1843,7 +1896,7 @@ public enum XSound {
     @Nonnull
     public static XSound matchXSound(@Nonnull Sound sound) {
         Objects.requireNonNull(sound, "Cannot match XSound of a null sound");
-        return Objects.requireNonNull(Data.NAMES.get(sound.name()), () -> "Unsupported sound: " + sound.name());
+        return Objects.requireNonNull(NAMES.get(sound.name()), () -> "Unsupported sound: " + sound.name());
     }
 
     private static List<String> split(@Nonnull String str, @SuppressWarnings("SameParameterValue") char separatorChar) {
@@ -1935,12 +1988,53 @@ public enum XSound {
      * </pre>
      * <p>
      *
+     * <p>
+     * The parsed records are cached, so parsing the same string again only copies the cached record.
+     *
      * @param sound the string of the sound with volume and pitch (if needed).
      * @since 7.0.0
      */
     @Nullable
     public static Record parse(@Nullable String sound) {
         if (Strings.isNullOrEmpty(sound) || sound.equalsIgnoreCase("none")) return null;
+
+        // The cached records are never exposed since records are mutable.
+        Record record = ParseCache.RECORDS.getIfPresent(sound);
+        if (record == null) {
+            record = parseUncached(sound);
+            ParseCache.RECORDS.put(sound, record);
+        }
+        return record.clone();
+    }
+
+    /**
+     * Statistics of the cache used by {@link #parse(String)}, such as the hit and miss counts.
+     *
+     * @since 12.0.0
+     */
+    @Nonnull
+    public static CacheStats getParseCacheStats() {
+        return ParseCache.RECORDS.stats();
+    }
+
+    /**
+     * Same as matching {@link #NAMESPACED_SOUND_PATTERN} without creating a new matcher every time.
+     */
+    private static boolean isNamespacedSound(@Nonnull String sound) {
+        int colon = sound.indexOf(':');
+        if (colon <= 0 || colon == sound.length() - 1) return false;
+
+        for (int i = 0; i < sound.length(); i++) {
+            if (i == colon) continue;
+            char ch = sound.charAt(i);
+            if ((ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9') || ch == '.' || ch == '_' || ch == '-') continue;
+            if (ch == '/' && i > colon) continue;
+            return false;
+        }
+        return true;
+    }
+
+    private static Record parseUncached(@Nonnull String sound) {
         @SuppressWarnings("DynamicRegexReplaceableByCompiledPattern") List<String> split = split(sound.replace(" ", ""), ',');
 
         Record record = new Record();
@@ -1960,7 +2054,7 @@ public enum XSound {
                 String category = name.substring(0, atIndex);
                 soundName = name.substring(atIndex + 1);
 
-                Category soundCategory = Enums.getIfPresent(Category.class, category.toUpperCase(Locale.ENGLISH)).orNull();
+                Category soundCategory = CATEGORIES.get(category.toUpperCase(Locale.ENGLISH));
                 if (soundCategory == null)
                     throw new IllegalArgumentException("Unknown sound category '" + category + "' in: " + sound);
                 else record.inCategory(soundCategory);
@@ -1976,7 +2070,7 @@ public enum XSound {
             if (!soundType.isPresent()) {
                 if (soundName.indexOf(':') != -1) {
                     soundName = soundName.toLowerCase(Locale.ENGLISH);
-                    if (!NAMESPACED_SOUND_PATTERN.matcher(soundName).matches()) {
+                    if (!isNamespacedSound(soundName)) {
                         throw new IllegalArgumentException("Unknown sound '" + soundName + "', invalid namespace characters: " + name);
                     } else {
                         record.withSound(soundName);
@@ -2156,6 +2250,17 @@ public enum XSound {
                 .play();
     }
 
+    /**
+     * The records of the sound strings that were already {@link #parse(String) parsed}.
+     * It's a separate class so the cache is only created when a sound is parsed for the first time.
+     *
+     * @since 12.0.0
+     */
+    private static final class ParseCache {
+        private static final Cache<String, Record> RECORDS = CacheBuilder.newBuilder()
+                .maximumSize(1000).recordStats().build();
+    }
+
     /**
      * Used for data that need to be accessed during enum initialization.
      *
@@ -2164,13 +2269,14 @@ public enum XSound {
      */
     private static final class Data {
         /**
-         * Just for enum initialization.
+         * Just for enum initialization. Cleared once all the sounds are initialized.
          *
          * @since 5.0.0
          */
-        private static final WeakHashMap<String, Sound> BUKKIT_NAMES = new WeakHashMap<>();
+        private static final Map<String, Sound> BUKKIT_NAMES = new HashMap<>();
         /**
          * We don't want to use {@link Enums#getIfPresent(Class, String)} to avoid a few checks.
+         * Only filled during enum initialization, the lookups use {@link XSound#NAMES} instead.
          *
          * @since 3.1.0
          */
@@ -2220,6 +2326,20 @@ public enum XSound {
         @Nullable
         public Location location;
 
+        /**
+         * Whether to keep the {@link #heard} players updated after each play.
+         */
+        private boolean trackHeard = true;
+
+        /**
+         * The {@link Record#sound} and {@link Record#category} that the Bukkit objects below were resolved for.
+         */
+        private Object resolvedSound;
+        private Category resolvedCategory;
+        private Sound bukkitSound;
+        private String customSound;
+        private SoundCategory bukkitCategory;
+
         public SoundPlayer(Record record) {
             withRecord(record);
         }
@@ -2257,10 +2377,33 @@ public enum XSound {
             return this;
         }
 
+        /**
+         * Whether to save the players that heard the sound in {@link #heard} every time the sound is played.
+         * This is enabled by default and is needed for {@link #stopSound()} to work.
+         *
+         * @since 12.0.0
+         */
+        public SoundPlayer trackHeard(boolean trackHeard) {
+            this.trackHeard = trackHeard;
+            return this;
+        }
+
         /**
          * Gets a list of players who can hear this sound.
          */
         public Collection<Player> getHearingPlayers() {
+            List<Player> hearing = new ArrayList<>();
+            getHearingPlayers(hearing);
+            return hearing;
+        }
+
+        /**
+         * Adds the players who can hear this sound to the given collection.
+         *
+         * @param sink the collection to add the players to.
+         * @since 12.0.0
+         */
+        public void getHearingPlayers(@Nonnull Collection<? super Player> sink) {
             if (record.publicSound || players.isEmpty()) {
                 Location loc;
                 if (location == null) {
@@ -2268,48 +2411,63 @@ public enum XSound {
                         throw new IllegalStateException("Cannot play public sound when no location is specified: " + this);
 
                     Player player = Bukkit.getPlayer(players.iterator().next());
-                    if (player == null) return new ArrayList<>();
+                    if (player == null) return;
                     else loc = player.getEyeLocation();
                 } else {
                     loc = this.location;
                 }
-                return getHearingPlayers(loc, record.volume);
+                getHearingPlayers(loc, record.volume, sink);
             } else {
-                return toOnlinePlayers(this.players, Collectors.toList());
+                toOnlinePlayers(this.players, sink);
             }
         }
 
         /**
          * Gets a list of players that can hear this sound at the given location and volume.
          * This method pretty much uses the default algorithm used by Bukkit.
+         * The players are looked up from {@link HearingIndex} if it's enabled.
          *
          * @param location The location which the sound is going to be played.
          * @param volume   The volume of the sound being played. Also see {@link Record#volume}
          */
         @Nonnull
         public static Collection<Player> getHearingPlayers(Location location, double volume) {
+            List<Player> hearing = new ArrayList<>();
+            getHearingPlayers(location, volume, hearing);
+            return hearing;
+        }
+
+        /**
+         * Same as {@link #getHearingPlayers(Location, double)} except that the players
+         * are added to the given collection, so it can be reused between calls.
+         *
+         * @param sink the collection to add the players to.
+         * @since 12.0.0
+         */
+        public static void getHearingPlayers(Location location, double volume, @Nonnull Collection<? super Player> sink) {
             // Increase the amount of blocks for volumes higher than 1
             volume = volume > 1.0F ? (16.0F * volume) : 16.0;
-            double powerVolume = volume * volume;
 
-            List<Player> playersInWorld = location.getWorld().getPlayers();
-            List<Player> hearing = new ArrayList<>(playersInWorld.size());
+            HearingIndex index = Bukkit.isPrimaryThread() ? HearingIndex.get(location.getWorld()) : null;
+            if (index != null) {
+                index.getPlayersInRange(location.getX(), location.getY(), location.getZ(), volume, sink);
+                return;
+            }
 
+            double powerVolume = volume * volume;
             double x = location.getX();
             double y = location.getY();
             double z = location.getZ();
 
-            for (Player player : playersInWorld) {
+            for (Player player : location.getWorld().getPlayers()) {
                 Location loc = player.getLocation();
                 double deltaX = x - loc.getX();
                 double deltaY = y - loc.getY();
                 double deltaZ = z - loc.getZ();
 
                 double length = deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ;
-                if (length < powerVolume) hearing.add(player);
+                if (length < powerVolume) sink.add(player);
             }
-
-            return hearing;
         }
 
         /**
@@ -2343,25 +2501,82 @@ public enum XSound {
          * @since 3.0.0
          */
         public void play(@Nonnull Location updatedLocation) {
-            Collection<Player> hearing = getHearingPlayers();
-            this.heard = hearing.stream().map(Entity::getUniqueId).collect(Collectors.toSet());
+            play(updatedLocation, new ArrayList<>());
+        }
+
+        /**
+         * Same as {@link #play(Location)} except that the hearing players are collected into
+         * the given list, which is cleared first. Reusing the same list (along with disabling
+         * {@link #trackHeard(boolean)}) avoids creating new objects every time the sound is played.
+         * <p>
+         * Note that the list is not safe to share between threads.
+         *
+         * @param updatedLocation the updated location.
+         * @param sink            the list used to collect the hearing players.
+         * @since 12.0.0
+         */
+        public void play(@Nonnull Location updatedLocation, @Nonnull List<Player> sink) {
+            sink.clear();
+            getHearingPlayers(sink);
+
+            if (trackHeard) {
+                if (heard == null) heard = new HashSet<>(sink.size());
+                else heard.clear();
+                for (Player player : sink) heard.add(player.getUniqueId());
+            }
 
-            if (hearing.isEmpty()) return;
-            play(hearing, updatedLocation);
+            if (sink.isEmpty()) return;
+            play(sink, updatedLocation);
+        }
+
+        private static void toOnlinePlayers(Collection<UUID> players, Collection<? super Player> sink) {
+            for (UUID id : players) {
+                Player player = Bukkit.getPlayer(id);
+                if (player != null) sink.add(player);
+            }
         }
 
-        private static <A, R> R toOnlinePlayers(Collection<UUID> players, Collector<Player, A, R> collector) {
-            return players.stream()
-                    .map(Bukkit::getPlayer)
-                    .filter(Objects::nonNull)
-                    .collect(collector);
+        /**
+         * Resolves the Bukkit objects of the record only when its sound or category changes.
+         */
+        private void resolveSound() {
+            Object sound = record.sound;
+            if (sound != resolvedSound) {
+                bukkitSound = sound instanceof XSound ? ((XSound) sound).parseSound() : null;
+                customSound = sound instanceof String ? (String) sound : null;
+                resolvedSound = sound;
+            }
+
+            Category category = record.category;
+            if (category != resolvedCategory) {
+                bukkitCategory = (SoundCategory) category.getBukkitObject();
+                resolvedCategory = category;
+            }
         }
 
+        /**
+         * Plays the sound for the given players at the given location.
+         * If the server supports it, a single sound packet is built and the same packet
+         * is sent to all the players, otherwise {@link Player#playSound(Location, Sound, float, float)}
+         * is used for each player.
+         *
+         * @param players         the players that hear the sound.
+         * @param updatedLocation the location of the sound.
+         */
         public void play(Collection<Player> players, @Nonnull Location updatedLocation) {
             Objects.requireNonNull(updatedLocation, "Cannot play sound at null location");
 
-            Sound objSound = record.sound instanceof XSound ? ((XSound) record.sound).parseSound() : null;
-            String strSound = record.sound instanceof String ? (String) record.sound : null;
+            resolveSound();
+            Sound objSound = bukkitSound;
+            String strSound = customSound;
+
+            if (players.size() > 1) {
+                Object packet = SoundPacket.create(objSound, strSound, record, updatedLocation);
+                if (packet != null) {
+                    MinecraftConnection.sendPackets(players, packet);
+                    return;
+                }
+            }
 
             for (Player player : players) {
                 // https://hub.spigotmc.org/javadocs/bukkit/org/bukkit/entity/Player.html#playSound(org.bukkit.Location,java.lang.String,org.bukkit.SoundCategory,float,float,long)
@@ -2369,15 +2584,15 @@ public enum XSound {
                 switch (SUPPORTED_METHOD_LEVEL) {
                     case 3: // Category + Seed
                         if (objSound != null)
-                            player.playSound(updatedLocation, objSound, (SoundCategory) record.category.getBukkitObject(), record.volume, record.pitch, record.generateSeed());
+                            player.playSound(updatedLocation, objSound, bukkitCategory, record.volume, record.pitch, record.generateSeed());
                         else
-                            player.playSound(updatedLocation, strSound, (SoundCategory) record.category.getBukkitObject(), record.volume, record.pitch, record.generateSeed());
+                            player.playSound(updatedLocation, strSound, bukkitCategory, record.volume, record.pitch, record.generateSeed());
                         break;
                     case 2: // Category
                         if (objSound != null)
-                            player.playSound(updatedLocation, objSound, (SoundCategory) record.category.getBukkitObject(), record.volume, record.pitch);
+                            player.playSound(updatedLocation, objSound, bukkitCategory, record.volume, record.pitch);
                         else
-                            player.playSound(updatedLocation, strSound, (SoundCategory) record.category.getBukkitObject(), record.volume, record.pitch);
+                            player.playSound(updatedLocation, strSound, bukkitCategory, record.volume, record.pitch);
                         break;
                     case 1: // None
                         if (objSound != null) player.playSound(updatedLocation, objSound, record.volume, record.pitch);
@@ -2389,6 +2604,140 @@ public enum XSound {
             }
         }
 
+        /**
+         * Builds the {@code ClientboundSoundPacket} (PacketPlayOutNamedSoundEffect) directly,
+         * so it can be shared between all the players that hear the sound.
+         * This is only available in 1.19.3 and above (when the sound seed was added to the packet).
+         */
+        private static final class SoundPacket {
+            /**
+             * Null if the packet can't be built on this server.
+             */
+            private static final MethodHandle PACKET, BUKKIT_SOUND_HOLDER;
+            /**
+             * Used for custom sounds, null if any of them are not available.
+             */
+            private static final MethodHandle RESOURCE_LOCATION, VARIABLE_RANGE_EVENT, DIRECT_HOLDER;
+            /**
+             * The NMS {@code SoundSource} for each {@link Category#ordinal()}
+             */
+            private static final Object[] SOURCES;
+
+            static {
+                MethodHandle packet = null, bukkitHolder = null;
+                MethodHandle resourceLocation = null, variableRange = null, directHolder = null;
+                Object[] sources = null;
+
+                MinecraftClassHandle holder = null, soundEvent = null, location = null;
+
+                try {
+                    holder = ofMinecraft()
+                            .inPackage(MinecraftPackage.NMS, "core")
+                            .named("Holder");
+                    soundEvent = ofMinecraft()
+                            .inPackage(MinecraftPackage.NMS, "sounds")
+                            .map(MinecraftMapping.MOJANG, "SoundEvent")
+                            .map(MinecraftMapping.SPIGOT, "SoundEffect");
+                    location = ofMinecraft()
+                            .inPackage(MinecraftPackage.NMS, "resources")
+                            .map(MinecraftMapping.MOJANG, "ResourceLocation")
+                            .map(MinecraftMapping.SPIGOT, "MinecraftKey");
+                    MinecraftClassHandle soundSource = ofMinecraft()
+                            .inPackage(MinecraftPackage.NMS, "sounds")
+                            .map(MinecraftMapping.MOJANG, "SoundSource")
+                            .map(MinecraftMapping.SPIGOT, "SoundCategory");
+
+                    packet = ofMinecraft()
+                            .inPackage(MinecraftPackage.NMS, "network.protocol.game")
+                            .map(MinecraftMapping.MOJANG, "ClientboundSoundPacket")
+                            .map(MinecraftMapping.SPIGOT, "PacketPlayOutNamedSoundEffect")
+                            .constructor(holder, soundSource, of(double.class), of(double.class), of(double.class),
+                                    of(float.class), of(float.class), of(long.class))
+                            .reflect();
+                    bukkitHolder = ofMinecraft()
+                            .inPackage(MinecraftPackage.CB)
+                            .named("CraftSound")
+                            .method().asStatic()
+                            .named("bukkitToMinecraftHolder")
+                            .returns(holder)
+                            .parameters(Sound.class)
+                            .reflect();
+
+                    Class<?> sourceClass = soundSource.reflect();
+                    sources = new Object[Category.values().length];
+                    for (Category category : Category.values()) {
+                        for (Object source : sourceClass.getEnumConstants()) {
+                            if (((Enum<?>) source).name().equals(category.name())) {
+                                sources[category.ordinal()] = source;
+                                break;
+                            }
+                        }
+                        if (sources[category.ordinal()] == null)
+                            throw new IllegalStateException("Unknown sound source: " + category);
+                    }
+                } catch (Throwable ignored) {
+                    // Also happens when the server itself isn't available (e.g. unit tests)
+                    packet = null;
+                    bukkitHolder = null;
+                }
+
+                if (packet != null) {
+                    try {
+                        resourceLocation = location.method().asStatic()
+                                .map(MinecraftMapping.MOJANG, "tryParse")
+                                .returns(location)
+                                .parameters(String.class)
+                                .reflect();
+                        variableRange = soundEvent.method().asStatic()
+                                .map(MinecraftMapping.MOJANG, "createVariableRangeEvent")
+                                .returns(soundEvent)
+                                .parameters(location)
+                                .reflect();
+                        directHolder = holder.method().asStatic()
+                                .map(MinecraftMapping.MOJANG, "direct")
+                                .returns(holder)
+                                .parameters(Object.class)
+                                .reflect();
+                    } catch (Throwable ignored) {
+                        resourceLocation = null;
+                    }
+                }
+
+                PACKET = packet;
+                BUKKIT_SOUND_HOLDER = bukkitHolder;
+                SOURCES = sources;
+                boolean custom = resourceLocation != null && variableRange != null && directHolder != null;
+                RESOURCE_LOCATION = custom ? resourceLocation : null;
+                VARIABLE_RANGE_EVENT = custom ? variableRange : null;
+                DIRECT_HOLDER = custom ? directHolder : null;
+            }
+
+            /**
+             * @return the sound packet, or null if it can't be built for this sound on this server.
+             */
+            @Nullable
+            private static Object create(@Nullable Sound sound, @Nullable String custom, Record record, Location location) {
+                if (PACKET == null) return null;
+                try {
+                    Object holder;
+                    if (sound != null) {
+                        holder = BUKKIT_SOUND_HOLDER.invoke(sound);
+                    } else {
+                        if (RESOURCE_LOCATION == null || custom == null) return null;
+                        Object key = RESOURCE_LOCATION.invoke(custom);
+                        if (key == null) return null;
+                        holder = DIRECT_HOLDER.invoke(VARIABLE_RANGE_EVENT.invoke(key));
+                    }
+
+                    return PACKET.invoke(holder, SOURCES[record.category.ordinal()],
+                            location.getX(), location.getY(), location.getZ(),
+                            record.volume, record.pitch, record.generateSeed());
+                } catch (Throwable throwable) {
+                    throw new RuntimeException("Failed to create sound packet for " + record, throwable);
+                }
+            }
+        }
+
         /**
          * Stops the sound playing to the players that this sound was played to.
          * Note this works fine if the sound was played to one specific player, but for
@@ -2402,11 +2751,338 @@ public enum XSound {
         public void stopSound() {
             if (heard == null || heard.isEmpty()) return;
 
-            List<Player> heardOnline = toOnlinePlayers(this.heard, Collectors.toList());
-            heardOnline.forEach(x -> {
-                if (record.sound instanceof XSound) x.stopSound(((XSound) record.sound).parseSound());
-                else x.stopSound((String) record.sound);
-            });
+            List<Player> heardOnline = new ArrayList<>(heard.size());
+            toOnlinePlayers(this.heard, heardOnline);
+            for (Player player : heardOnline) {
+                if (record.sound instanceof XSound) player.stopSound(((XSound) record.sound).parseSound());
+                else player.stopSound((String) record.sound);
+            }
+        }
+    }
+
+    /**
+     * An optional index of the players in each world grouped by the chunk that they're in,
+     * which is used by {@link SoundPlayer#getHearingPlayers(Location, double)} to only check
+     * the players in the chunks around the sound instead of every player in the world.
+     * This is mostly useful for servers with a lot of players in the same world.
+     * <p>
+     * The index is kept updated by the movement events, so it's only used once the {@link Events}
+     * listener is registered:
+     * <pre>{@code
+     *     Bukkit.getPluginManager().registerEvents(new XSound.HearingIndex.Events(), plugin);
+     * }</pre>
+     * Players that are moved without any events being called (e.g. by another plugin directly)
+     * can be updated manually using {@link #track(Player, Location)}.
+     * <p>
+     * The index is only accessed from the main thread. Sounds played from other threads
+     * simply check all the players in the world.
+     *
+     * @since 12.0.0
+     */
+    public static final class HearingIndex {
+        /**
+         * The size of each cell in blocks, which is the same as chunks.
+         */
+        private static final int CELL_SHIFT = 4;
+        private static final Map<UUID, HearingIndex> WORLDS = new HashMap<>();
+        private static final Map<UUID, Entry> PLAYERS = new HashMap<>();
+        private static final HearingIndex EMPTY = new HearingIndex();
+        private static boolean enabled;
+
+        private Cell[] buckets = new Cell[16];
+        private int cellCount;
+        private int playerCount;
+
+        /**
+         * Starts indexing all the online players. This is automatically called when
+         * the {@link Events} listener is created, and should only be called from the main thread.
+         */
+        public static void enable() {
+            if (enabled) return;
+            enabled = true;
+            for (Player player : Bukkit.getOnlinePlayers()) track(player, player.getLocation());
+        }
+
+        /**
+         * Stops using the index and removes all the tracked players.
+         * The {@link Events} listener should be unregistered before calling this.
+         */
+        public static void disable() {
+            enabled = false;
+            WORLDS.clear();
+            PLAYERS.clear();
+        }
+
+        public static boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Gets the index of the players in the given world.
+         * The index is not thread-safe, so it should only be used from the main thread.
+         *
+         * @return the index of this world, or null if the index isn't enabled.
+         */
+        @Nullable
+        public static HearingIndex get(@Nonnull World world) {
+            if (!enabled) return null;
+            HearingIndex index = WORLDS.get(world.getUID());
+            // Worlds without any players don't have an index.
+            return index == null ? EMPTY : index;
+        }
+
+        /**
+         * Updates the location of the given player in the index.
+         *
+         * @param player   the player to update.
+         * @param location the new location of the player.
+         */
+        public static void track(@Nonnull Player player, @Nonnull Location location) {
+            if (!enabled) return;
+            UUID world = location.getWorld().getUID();
+            Entry entry = PLAYERS.get(player.getUniqueId());
+
+            if (entry == null) {
+                entry = new Entry(player);
+                PLAYERS.put(player.getUniqueId(), entry);
+            } else if (!entry.world.equals(world)) {
+                untrack(entry);
+            }
+
+            entry.x = location.getX();
+            entry.y = location.getY();
+            entry.z = location.getZ();
+            int cellX = floor(entry.x) >> CELL_SHIFT;
+            int cellZ = floor(entry.z) >> CELL_SHIFT;
+
+            if (entry.cell != null) {
+                if (entry.cell.x == cellX && entry.cell.z == cellZ) return;
+                entry.index.remove(entry);
+            }
+
+            entry.world = world;
+            entry.index = WORLDS.computeIfAbsent(world, k -> new HearingIndex());
+            entry.index.add(entry, cellX, cellZ);
+        }
+
+        /**
+         * Removes the given player from the index.
+         */
+        public static void untrack(@Nonnull Player player) {
+            Entry entry = PLAYERS.remove(player.getUniqueId());
+            if (entry != null) untrack(entry);
+        }
+
+        private static void untrack(Entry entry) {
+            if (entry.cell == null) return;
+            HearingIndex index = entry.index;
+            index.remove(entry);
+            if (index.playerCount == 0) WORLDS.remove(entry.world);
+        }
+
+        /**
+         * Gets the players within the given range of a location.
+         *
+         * @param x     the x coordinate of the location.
+         * @param y     the y coordinate of the location.
+         * @param z     the z coordinate of the location.
+         * @param range the range in blocks.
+         * @return a new list of the players that are in range.
+         */
+        @Nonnull
+        public List<Player> getPlayersInRange(double x, double y, double z, double range) {
+            List<Player> players = new ArrayList<>();
+            getPlayersInRange(x, y, z, range, players);
+            return players;
+        }
+
+        /**
+         * Same as {@link #getPlayersInRange(double, double, double, double)} except that the
+         * players are added to the given collection.
+         *
+         * @param players the collection to add the players to.
+         * @since 12.0.0
+         */
+        public void getPlayersInRange(double x, double y, double z, double range, @Nonnull Collection<? super Player> players) {
+            if (playerCount == 0) return;
+
+            double rangeSquared = range * range;
+            int minX = floor(x - range) >> CELL_SHIFT, maxX = floor(x + range) >> CELL_SHIFT;
+            int minZ = floor(z - range) >> CELL_SHIFT, maxZ = floor(z + range) >> CELL_SHIFT;
+
+            if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) >= cellCount) {
+                // Checking every cell is cheaper for large ranges.
+                for (Cell bucket : buckets) {
+                    for (Cell cell = bucket; cell != null; cell = cell.next) {
+                        if (cell.x >= minX && cell.x <= maxX && cell.z >= minZ && cell.z <= maxZ)
+                            cell.collect(x, y, z, rangeSquared, players);
+                    }
+                }
+            } else {
+                for (int cellX = minX; cellX <= maxX; cellX++) {
+                    for (int cellZ = minZ; cellZ <= maxZ; cellZ++) {
+                        Cell cell = getCell(cellX, cellZ);
+                        if (cell != null) cell.collect(x, y, z, rangeSquared, players);
+                    }
+                }
+            }
+
+        }
+
+        private static int floor(double value) {
+            int floor = (int) value;
+            return value < floor ? floor - 1 : floor;
+        }
+
+        private static int hash(int x, int z) {
+            int hash = x * 31 + z;
+            return hash ^ (hash >>> 16);
+        }
+
+        @Nullable
+        private Cell getCell(int x, int z) {
+            for (Cell cell = buckets[hash(x, z) & (buckets.length - 1)]; cell != null; cell = cell.next) {
+                if (cell.x == x && cell.z == z) return cell;
+            }
+            return null;
+        }
+
+        private void add(Entry entry, int x, int z) {
+            Cell cell = getCell(x, z);
+            if (cell == null) {
+                if (cellCount >= buckets.length * 3 / 4) resize();
+                int bucket = hash(x, z) & (buckets.length - 1);
+                cell = new Cell(x, z, buckets[bucket]);
+                buckets[bucket] = cell;
+                cellCount++;
+            }
+
+            entry.cell = cell;
+            entry.slot = cell.size;
+            if (cell.size == cell.entries.length) cell.entries = Arrays.copyOf(cell.entries, cell.size * 2);
+            cell.entries[cell.size++] = entry;
+            playerCount++;
+        }
+
+        private void remove(Entry entry) {
+            Cell cell = entry.cell;
+            // Move the last entry to the removed slot.
+            Entry last = cell.entries[--cell.size];
+            cell.entries[entry.slot] = last;
+            last.slot = entry.slot;
+            cell.entries[cell.size] = null;
+            entry.cell = null;
+            playerCount--;
+
+            if (cell.size == 0) {
+                int bucket = hash(cell.x, cell.z) & (buckets.length - 1);
+                if (buckets[bucket] == cell) buckets[bucket] = cell.next;
+                else {
+                    Cell previous = buckets[bucket];
+                    while (previous.next != cell) previous = previous.next;
+                    previous.next = cell.next;
+                }
+                cellCount--;
+            }
+        }
+
+        private void resize() {
+            Cell[] newBuckets = new Cell[buckets.length * 2];
+            for (Cell bucket : buckets) {
+                Cell cell = bucket;
+                while (cell != null) {
+                    Cell next = cell.next;
+                    int index = hash(cell.x, cell.z) & (newBuckets.length - 1);
+                    cell.next = newBuckets[index];
+                    newBuckets[index] = cell;
+                    cell = next;
+                }
+            }
+            buckets = newBuckets;
+        }
+
+        private static final class Entry {
+            private final Player player;
+            private UUID world;
+            private HearingIndex index;
+            private Cell cell;
+            private int slot;
+            private double x, y, z;
+
+            private Entry(Player player) {
+                this.player = player;
+            }
+        }
+
+        private static final class Cell {
+            private final int x, z;
+            private Cell next;
+            private Entry[] entries = new Entry[4];
+            private int size;
+
+            private Cell(int x, int z, Cell next) {
+                this.x = x;
+                this.z = z;
+                this.next = next;
+            }
+
+            private void collect(double x, double y, double z, double rangeSquared, Collection<? super Player> players) {
+                for (int i = 0; i < size; i++) {
+                    Entry entry = entries[i];
+                    double deltaX = x - entry.x;
+                    double deltaY = y - entry.y;
+                    double deltaZ = z - entry.z;
+                    if (deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ < rangeSquared) players.add(entry.player);
+                }
+            }
+        }
+
+        /**
+         * Keeps the index updated. Creating this listener {@link #enable() enables} the index.
+         */
+        @SuppressWarnings("unused")
+        public static final class Events implements Listener {
+            public Events() {
+                enable();
+            }
+
+            @EventHandler(priority = EventPriority.MONITOR)
+            public void onJoin(PlayerJoinEvent event) {
+                track(event.getPlayer(), event.getPlayer().getLocation());
+            }
+
+            @EventHandler(priority = EventPriority.MONITOR)
+            public void onQuit(PlayerQuitEvent event) {
+                untrack(event.getPlayer());
+            }
+
+            @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+            public void onMove(PlayerMoveEvent event) {
+                if (event.getTo() != null) track(event.getPlayer(), event.getTo());
+            }
+
+            @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+            public void onTeleport(PlayerTeleportEvent event) {
+                if (event.getTo() != null) track(event.getPlayer(), event.getTo());
+            }
+
+            @EventHandler(priority = EventPriority.MONITOR)
+            public void onWorldChange(PlayerChangedWorldEvent event) {
+                track(event.getPlayer(), event.getPlayer().getLocation());
+            }
+
+            @EventHandler(priority = EventPriority.MONITOR)
+            public void onRespawn(PlayerRespawnEvent event) {
+                track(event.getPlayer(), event.getRespawnLocation());
+            }
+
+            @SuppressWarnings("deprecation")
+            @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+            public void onVehicleMove(VehicleMoveEvent event) {
+                // Players riding vehicles don't trigger PlayerMoveEvent.
+                Entity passenger = event.getVehicle().getPassenger();
+                if (passenger instanceof Player) track((Player) passenger, event.getTo());
+            }
         }
     }
 
@@ -2416,8 +3092,6 @@ public enum XSound {
      * @since 3.0.0
      */
     public static class Record implements Cloneable {
-        private static final Random RANDOM = new Random();
-
         private Object sound;
 
         @Nonnull
@@ -2494,7 +3168,7 @@ public enum XSound {
         }
 
         public long generateSeed() {
-            return seed == null ? RANDOM.nextLong() : seed;
+            return seed == null ? ThreadLocalRandom.current().nextLong() : seed;
         }
 
         public Record withVolume(float volume) {
@@ -2553,6 +3227,7 @@ public enum XSound {
         public Record clone() {
             Record record = new Record();
             record.sound = sound;
+            record.category = category;
             record.volume = volume;
             record.pitch = pitch;
             record.publicSound = publicSound;
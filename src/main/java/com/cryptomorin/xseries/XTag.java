@@ -27,9 +27,12 @@ import org.bukkit.inventory.ItemStack;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public final class XTag<T extends Enum<T>> {
 
@@ -1069,37 +1072,37 @@ public final class XTag<T extends Enum<T>> {
     }
 
     static { // colorable
-        CANDLE_CAKES = new XTag<>(findAllColors("CANDLE_CAKE"));
-        CANDLES = new XTag<>(findAllColors("CANDLE"));
-        TERRACOTTA = new XTag<>(findAllColors("TERRACOTTA"));
-        GLAZED_TERRACOTTA = new XTag<>(findAllColors("GLAZED_TERRACOTTA"));
-        SHULKER_BOXES = new XTag<>(findAllColors("SHULKER_BOX"));
-        CARPETS = new XTag<>(findAllColors("CARPET"));
-        WOOL = new XTag<>(findAllColors("WOOL"));
-        GLASS = new XTag<>(findAllColors("GLASS"));
+        CANDLE_CAKES = new XTag<>(XMaterial.class, () -> findAllColors("CANDLE_CAKE"));
+        CANDLES = new XTag<>(XMaterial.class, () -> findAllColors("CANDLE"));
+        TERRACOTTA = new XTag<>(XMaterial.class, () -> findAllColors("TERRACOTTA"));
+        GLAZED_TERRACOTTA = new XTag<>(XMaterial.class, () -> findAllColors("GLAZED_TERRACOTTA"));
+        SHULKER_BOXES = new XTag<>(XMaterial.class, () -> findAllColors("SHULKER_BOX"));
+        CARPETS = new XTag<>(XMaterial.class, () -> findAllColors("CARPET"));
+        WOOL = new XTag<>(XMaterial.class, () -> findAllColors("WOOL"));
+        GLASS = new XTag<>(XMaterial.class, () -> findAllColors("GLASS"));
         GLASS.inheritFrom(new XTag<>(XMaterial.TINTED_GLASS));
-        ITEMS_BANNERS = new XTag<>(findAllColors("BANNER"));
-        WALL_BANNERS = new XTag<>(findAllColors("WALL_BANNER"));
+        ITEMS_BANNERS = new XTag<>(XMaterial.class, () -> findAllColors("BANNER"));
+        WALL_BANNERS = new XTag<>(XMaterial.class, () -> findAllColors("WALL_BANNER"));
         BANNERS = new XTag<>(XMaterial.class, ITEMS_BANNERS, WALL_BANNERS);
-        BEDS = new XTag<>(findAllColors("BED"));
-        CONCRETE = new XTag<>(findAllColors("CONCRETE"));
-        CONCRETE_POWDER = new XTag<>(findAllColors("CONCRETE_POWDER"));
+        BEDS = new XTag<>(XMaterial.class, () -> findAllColors("BED"));
+        CONCRETE = new XTag<>(XMaterial.class, () -> findAllColors("CONCRETE"));
+        CONCRETE_POWDER = new XTag<>(XMaterial.class, () -> findAllColors("CONCRETE_POWDER"));
     }
 
     static { // wooded material
-        STANDING_SIGNS = new XTag<>(findAllWoodTypes("SIGN"));
-        WALL_SIGNS = new XTag<>(findAllWoodTypes("WALL_SIGN"));
-        WALL_HANGING_SIGNS = new XTag<>(findAllWoodTypes("WALL_HANGING_SIGN"));
-        HANGING_SIGNS = new XTag<>(findAllWoodTypes("HANGING_SIGN"));
-        WOODEN_PRESSURE_PLATES = new XTag<>(findAllWoodTypes("PRESSURE_PLATE"));
-        WOODEN_DOORS = new XTag<>(findAllWoodTypes("DOOR"));
-        WOODEN_FENCE_GATES = new XTag<>(findAllWoodTypes("FENCE_GATE"));
-        WOODEN_FENCES = new XTag<>(findAllWoodTypes("FENCE"));
-        WOODEN_SLABS = new XTag<>(findAllWoodTypes("SLAB"));
-        WOODEN_STAIRS = new XTag<>(findAllWoodTypes("STAIRS"));
-        WOODEN_TRAPDOORS = new XTag<>(findAllWoodTypes("TRAPDOOR"));
-        PLANKS = new XTag<>(findAllWoodTypes("PLANKS"));
-        WOODEN_BUTTONS = new XTag<>(findAllWoodTypes("BUTTON"));
+        STANDING_SIGNS = new XTag<>(XMaterial.class, () -> findAllWoodTypes("SIGN"));
+        WALL_SIGNS = new XTag<>(XMaterial.class, () -> findAllWoodTypes("WALL_SIGN"));
+        WALL_HANGING_SIGNS = new XTag<>(XMaterial.class, () -> findAllWoodTypes("WALL_HANGING_SIGN"));
+        HANGING_SIGNS = new XTag<>(XMaterial.class, () -> findAllWoodTypes("HANGING_SIGN"));
+        WOODEN_PRESSURE_PLATES = new XTag<>(XMaterial.class, () -> findAllWoodTypes("PRESSURE_PLATE"));
+        WOODEN_DOORS = new XTag<>(XMaterial.class, () -> findAllWoodTypes("DOOR"));
+        WOODEN_FENCE_GATES = new XTag<>(XMaterial.class, () -> findAllWoodTypes("FENCE_GATE"));
+        WOODEN_FENCES = new XTag<>(XMaterial.class, () -> findAllWoodTypes("FENCE"));
+        WOODEN_SLABS = new XTag<>(XMaterial.class, () -> findAllWoodTypes("SLAB"));
+        WOODEN_STAIRS = new XTag<>(XMaterial.class, () -> findAllWoodTypes("STAIRS"));
+        WOODEN_TRAPDOORS = new XTag<>(XMaterial.class, () -> findAllWoodTypes("TRAPDOOR"));
+        PLANKS = new XTag<>(XMaterial.class, () -> findAllWoodTypes("PLANKS"));
+        WOODEN_BUTTONS = new XTag<>(XMaterial.class, () -> findAllWoodTypes("BUTTON"));
     }
 
     static { // ores
@@ -1117,14 +1120,14 @@ public final class XTag<T extends Enum<T>> {
     }
 
     static { // corals
-        ALIVE_CORAL_WALL_FANS = new XTag<>(findAllCorals(true, false, true, true));
-        ALIVE_CORAL_FANS = new XTag<>(findAllCorals(true, false, true, false));
-        ALIVE_CORAL_BLOCKS = new XTag<>(findAllCorals(true, true, false, false));
-        ALIVE_CORAL_PLANTS = new XTag<>(findAllCorals(true, false, false, false));
-        DEAD_CORAL_WALL_FANS = new XTag<>(findAllCorals(false, false, true, true));
-        DEAD_CORAL_FANS = new XTag<>(findAllCorals(false, false, true, false));
-        DEAD_CORAL_BLOCKS = new XTag<>(findAllCorals(false, true, false, false));
-        DEAD_CORAL_PLANTS = new XTag<>(findAllCorals(false, false, false, false));
+        ALIVE_CORAL_WALL_FANS = new XTag<>(XMaterial.class, () -> findAllCorals(true, false, true, true));
+        ALIVE_CORAL_FANS = new XTag<>(XMaterial.class, () -> findAllCorals(true, false, true, false));
+        ALIVE_CORAL_BLOCKS = new XTag<>(XMaterial.class, () -> findAllCorals(true, true, false, false));
+        ALIVE_CORAL_PLANTS = new XTag<>(XMaterial.class, () -> findAllCorals(true, false, false, false));
+        DEAD_CORAL_WALL_FANS = new XTag<>(XMaterial.class, () -> findAllCorals(false, false, true, true));
+        DEAD_CORAL_FANS = new XTag<>(XMaterial.class, () -> findAllCorals(false, false, true, false));
+        DEAD_CORAL_BLOCKS = new XTag<>(XMaterial.class, () -> findAllCorals(false, true, false, false));
+        DEAD_CORAL_PLANTS = new XTag<>(XMaterial.class, () -> findAllCorals(false, false, false, false));
         CORAL_FANS = new XTag<>(XMaterial.class, ALIVE_CORAL_FANS, ALIVE_CORAL_WALL_FANS, DEAD_CORAL_WALL_FANS, DEAD_CORAL_FANS);
 
         CORALS = new XTag<>(XMaterial.class, ALIVE_CORAL_WALL_FANS,
@@ -1144,7 +1147,7 @@ public final class XTag<T extends Enum<T>> {
     }
 
     static {
-        WALL_HEADS = new XTag<>(XMaterial.class, new XTag<>(findMaterialsEndingWith("WALL_HEAD")),
+        WALL_HEADS = new XTag<>(XMaterial.class, new XTag<>(XMaterial.class, () -> findMaterialsEndingWith("WALL_HEAD")),
                 new XTag<>(XMaterial.WITHER_SKELETON_WALL_SKULL, XMaterial.SKELETON_WALL_SKULL));
 
         WALL_TORCHES = new XTag<>(XMaterial.WALL_TORCH,
@@ -2297,12 +2300,38 @@ public final class XTag<T extends Enum<T>> {
                         XMaterial.WEEPING_VINES_PLANT, XMaterial.BAMBOO_SAPLING));
     }
 
-    @Nonnull
-    private Set<T> values;
+    /**
+     * An unmodifiable view of {@link #rawValues}, this is null until the values are {@link #resolve() resolved}.
+     */
+    @Nullable
+    private volatile Set<T> values;
+    /**
+     * The actual values of this tag which must never be modified once resolved.
+     * Only safe to access after {@link #values} is set.
+     */
+    private EnumSet<T> rawValues;
+    /**
+     * Builds the values of this tag on demand so tags that are never used don't cost anything.
+     * This must always return a new modifiable set and is removed once the tag is resolved.
+     */
+    @Nullable
+    private Supplier<EnumSet<T>> initializer;
 
     @SafeVarargs
     private XTag(@Nonnull T... values) {
-        this.values = Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(values)));
+        this.initializer = () -> EnumSet.copyOf(Arrays.asList(values));
+    }
+
+    private XTag(@Nonnull Supplier<EnumSet<T>> initializer) {
+        this.initializer = initializer;
+    }
+
+    private XTag(@Nonnull Class<T> clazz, @Nonnull Supplier<T[]> values) {
+        this.initializer = () -> {
+            EnumSet<T> set = EnumSet.noneOf(clazz);
+            Collections.addAll(set, values.get());
+            return set;
+        };
     }
 
     public static <E> List<Matcher<E>> stringMatcher(@Nullable Collection<String> elements) {
@@ -2364,13 +2393,11 @@ public final class XTag<T extends Enum<T>> {
                 continue;
             }
             if (checker.startsWith("TAG:")) {
-                comp = XMaterial.format(comp.substring(4));
-                try {
-                    Field field = XTag.class.getField(comp);
-                    XTag<?> obj = (XTag<?>) field.get(null);
-                    matchers.add(new Matcher.XTagMatcher(obj));
-                } catch (Throwable e) {
-                    if (errors != null) errors.add(new Matcher.Error(comp, "TAG", e));
+                comp = XMaterial.format(stripNamespace(comp.substring(4)));
+                XTag<?> tag = TagRegistry.TAGS.get(comp);
+                if (tag != null) matchers.add(new Matcher.XTagMatcher(tag));
+                else if (errors != null) {
+                    errors.add(new Matcher.Error(comp, "TAG", new IllegalArgumentException("Unknown tag: " + comp)));
                 }
             }
 
@@ -2380,12 +2407,41 @@ public final class XTag<T extends Enum<T>> {
         return matchers;
     }
 
+    /**
+     * Compiles the given string matchers, then checks if any of them match the target.
+     * Use {@link #compileMatchers(Collection, Collection)} instead if the same strings are checked frequently.
+     */
     public static <T> boolean anyMatchString(T target, Collection<String> matchers) {
         return anyMatch(target, stringMatcher(matchers));
     }
 
     public static <T> boolean anyMatch(T target, Collection<Matcher<T>> matchers) {
-        return matchers.stream().anyMatch(x -> x.matches(target));
+        for (Matcher<T> matcher : matchers) {
+            if (matcher.matches(target)) return true;
+        }
+        return false;
+    }
+
+    public static <E> Matcher.Compiled<E> compileMatchers(@Nullable Collection<String> elements) {
+        return compileMatchers(elements, null);
+    }
+
+    /**
+     * Compiles the given strings into a single matcher that is equivalent to checking
+     * {@link #anyMatch(Object, Collection)} for the {@link #stringMatcher(Collection, Collection) string matchers}
+     * of these strings. This is intended to be compiled once when loading configs and then reused.
+     * <p>
+     * For enums, the result of every constant is computed only once, so any further checks for
+     * the same enum only take a single array access regardless of how many or what type of matchers are used.
+     *
+     * @param elements the strings to compile. Check {@link #stringMatcher(Collection, Collection)} for the format.
+     * @param errors   the collection to add the errors to, if any.
+     * @return a single compiled matcher.
+     * @since 12.0.0
+     */
+    public static <E> Matcher.Compiled<E> compileMatchers(@Nullable Collection<String> elements,
+                                                         @Nullable Collection<Matcher.Error> errors) {
+        return new Matcher.Compiled<>(stringMatcher(elements, errors));
     }
 
     public abstract static class Matcher<T> {
@@ -2442,18 +2498,194 @@ public final class XTag<T extends Enum<T>> {
                 return matcher.isTagged(object);
             }
         }
+
+        /**
+         * A group of matchers merged into a single matcher.
+         * Exact names are checked using a hash set, and all the {@code CONTAINS} texts are merged into
+         * a single automaton that finds any of them in a single pass over the name.
+         * The results for enum targets are cached for every constant of the enum once it's first used.
+         *
+         * @see #compileMatchers(Collection, Collection)
+         * @since 12.0.0
+         */
+        public static final class Compiled<T> extends Matcher<T> {
+            private final Set<String> exact = new HashSet<>();
+            @Nullable
+            private final ContainsAutomaton contains;
+            private final List<Matcher<T>> others = new ArrayList<>();
+            /**
+             * The cached results for all the constants of the last enum type that was checked.
+             */
+            @Nullable
+            private volatile EnumResults results;
+
+            private Compiled(@Nonnull Collection<Matcher<T>> matchers) {
+                List<String> containsTexts = new ArrayList<>();
+                for (Matcher<T> matcher : matchers) {
+                    if (matcher instanceof TextMatcher) {
+                        TextMatcher<T> text = (TextMatcher<T>) matcher;
+                        if (!text.contains) exact.add(text.text);
+                        else if (ContainsAutomaton.supports(text.text)) containsTexts.add(text.text);
+                        else others.add(matcher);
+                    } else {
+                        others.add(matcher);
+                    }
+                }
+                this.contains = containsTexts.isEmpty() ? null : new ContainsAutomaton(containsTexts);
+            }
+
+            @Override
+            public boolean matches(T object) {
+                if (object instanceof Enum) {
+                    Enum<?> constant = (Enum<?>) object;
+                    Class<?> type = constant.getDeclaringClass();
+
+                    EnumResults results = this.results;
+                    if (results == null || results.type != type) {
+                        Object[] constants = type.getEnumConstants();
+                        boolean[] matches = new boolean[constants.length];
+                        for (int i = 0; i < constants.length; i++) {
+                            @SuppressWarnings("unchecked") T value = (T) constants[i];
+                            matches[i] = evaluate(value);
+                        }
+                        this.results = results = new EnumResults(type, matches);
+                    }
+                    return results.matches[constant.ordinal()];
+                }
+
+                return evaluate(object);
+            }
+
+            private boolean evaluate(T object) {
+                String name = object instanceof Enum ? ((Enum<?>) object).name() : object.toString();
+                if (exact.contains(name)) return true;
+                if (contains != null && contains.find(name)) return true;
+                for (Matcher<T> matcher : others) {
+                    if (matcher.matches(object)) return true;
+                }
+                return false;
+            }
+
+            private static final class EnumResults {
+                private final Class<?> type;
+                private final boolean[] matches;
+
+                private EnumResults(Class<?> type, boolean[] matches) {
+                    this.type = type;
+                    this.matches = matches;
+                }
+            }
+        }
+
+        /**
+         * An <a href="https://en.wikipedia.org/wiki/Aho%E2%80%93Corasick_algorithm">Aho-Corasick</a> automaton
+         * that checks if any of the texts are contained in a string in a single pass.
+         * The alphabet is limited to {@code A-Z}, {@code 0-9} and {@code _} which covers {@link XMaterial#format(String) formatted}
+         * texts, every other character in the checked string simply resets the automaton.
+         */
+        private static final class ContainsAutomaton {
+            private static final int ALPHABET = 37;
+            /**
+             * The full transition table of the automaton (including the failure transitions) indexed by {@code state * ALPHABET + symbol}
+             */
+            private final int[] transitions;
+            private final boolean[] accepting;
+
+            private ContainsAutomaton(List<String> texts) {
+                int maxStates = 1;
+                for (String text : texts) maxStates += text.length();
+
+                int[] trie = new int[maxStates * ALPHABET];
+                Arrays.fill(trie, -1);
+                boolean[] accepting = new boolean[maxStates];
+                int states = 1;
+
+                for (String text : texts) {
+                    int state = 0;
+                    for (int i = 0; i < text.length(); i++) {
+                        int symbol = symbol(text.charAt(i));
+                        int next = trie[state * ALPHABET + symbol];
+                        if (next == -1) {
+                            next = states++;
+                            trie[state * ALPHABET + symbol] = next;
+                        }
+                        state = next;
+                    }
+                    accepting[state] = true;
+                }
+
+                // Breadth-first traversal to fill in the failure transitions.
+                int[] failure = new int[states];
+                int[] queue = new int[states];
+                int head = 0, tail = 0;
+                for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                    int next = trie[symbol];
+                    if (next == -1) {
+                        trie[symbol] = 0;
+                    } else {
+                        failure[next] = 0;
+                        queue[tail++] = next;
+                    }
+                }
+
+                while (head < tail) {
+                    int state = queue[head++];
+                    if (accepting[failure[state]]) accepting[state] = true;
+
+                    for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                        int index = state * ALPHABET + symbol;
+                        int next = trie[index];
+                        if (next == -1) {
+                            trie[index] = trie[failure[state] * ALPHABET + symbol];
+                        } else {
+                            failure[next] = trie[failure[state] * ALPHABET + symbol];
+                            queue[tail++] = next;
+                        }
+                    }
+                }
+
+                this.transitions = Arrays.copyOf(trie, states * ALPHABET);
+                this.accepting = Arrays.copyOf(accepting, states);
+            }
+
+            private static boolean supports(String text) {
+                for (int i = 0; i < text.length(); i++) {
+                    if (symbol(text.charAt(i)) == -1) return false;
+                }
+                return true;
+            }
+
+            private static int symbol(char ch) {
+                if (ch >= 'A' && ch <= 'Z') return ch - 'A';
+                if (ch >= '0' && ch <= '9') return 26 + (ch - '0');
+                if (ch == '_') return 36;
+                return -1;
+            }
+
+            private boolean find(String str) {
+                // The empty string is contained in everything.
+                if (accepting[0]) return true;
+
+                int state = 0;
+                for (int i = 0, len = str.length(); i < len; i++) {
+                    int symbol = symbol(str.charAt(i));
+                    if (symbol == -1) state = 0;
+                    else {
+                        state = transitions[state * ALPHABET + symbol];
+                        if (accepting[state]) return true;
+                    }
+                }
+                return false;
+            }
+        }
     }
 
     @SafeVarargs
     private XTag(@Nonnull Class<T> clazz, @Nonnull XTag<T>... values) {
-        this.values = EnumSet.noneOf(clazz);
+        this.initializer = () -> EnumSet.noneOf(clazz);
         this.inheritFrom(values);
     }
 
-    private XTag(@Nonnull Set<T> values) {
-        this.values = Collections.unmodifiableSet(values);
-    }
-
     private static XMaterial[] findAllColors(String material) {
         String[] colorPrefixes = {"ORANGE", "LIGHT_BLUE", "GRAY", "BLACK", "MAGENTA", "PINK", "BLUE",
                 "GREEN", "CYAN", "PURPLE", "YELLOW", "LIME", "LIGHT_GRAY", "WHITE", "BROWN", "RED"};
@@ -2772,35 +3004,320 @@ public final class XTag<T extends Enum<T>> {
      */
     @Nonnull
     public Set<T> getValues() {
-        return this.values;
+        Set<T> values = this.values;
+        if (values == null) {
+            resolve();
+            values = this.values;
+        }
+        return values;
     }
 
     public boolean isTagged(@Nullable T value) {
-        return value != null && this.values.contains(value);
+        return value != null && resolve().contains(value);
     }
 
-    @SafeVarargs
-    private final XTag<T> without(T... without) {
-        Set<T> ignore = new HashSet<>();
-        Collections.addAll(ignore, without);
-        Set<T> newValues = values.stream().filter(t -> !ignore.contains(t)).collect(Collectors.toSet());
-        return new XTag<>(newValues);
+    /**
+     * Gets all the material tags that the given material belongs to.
+     * Use {@link TagMask} instead if you only need to check a few specific tags frequently.
+     *
+     * @param material the material to get the tags of.
+     * @return a new list of tags containing this material.
+     * @since 12.0.0
+     */
+    @Nonnull
+    public static List<XTag<XMaterial>> getTags(@Nonnull XMaterial material) {
+        Objects.requireNonNull(material, "Cannot get tags of null material");
+        XTag<XMaterial>[] tags = MaterialIndex.TAGS;
+        long[] masks = MaterialIndex.MASKS;
+        int base = material.ordinal() * MaterialIndex.WORDS;
+        List<XTag<XMaterial>> list = new ArrayList<>();
+
+        for (int word = 0; word < MaterialIndex.WORDS; word++) {
+            long bits = masks[base + word];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                list.add(tags[(word << 6) + bit]);
+                bits &= bits - 1;
+            }
+        }
+        return list;
     }
 
-    @SafeVarargs
-    private final XTag<T> inheritFrom(@Nonnull XTag<T>... values) {
-        // Copied because of Collections.unmodifiableSet.
-        // Better than wrapping it during getValues() every single time.
+    /**
+     * Gets all the materials that belong to every tag in {@code all} and none of the tags in {@code none}.
+     * <p>
+     * <b>Example:</b>
+     * <pre>{@code
+     *     // All the wooden slabs that aren't used for nether wood types.
+     *     XTag.filter(TagMask.of(XTag.WOODEN_SLABS), TagMask.of(XTag.NON_FLAMMABLE_WOOD));
+     * }</pre>
+     *
+     * @param all  the tags that the materials must have, or null to not check this.
+     * @param none the tags that the materials must not have, or null to not check this.
+     * @return a new modifiable set of the materials.
+     * @since 12.0.0
+     */
+    @Nonnull
+    public static Set<XMaterial> filter(@Nullable TagMask all, @Nullable TagMask none) {
+        EnumSet<XMaterial> materials = EnumSet.noneOf(XMaterial.class);
+        for (XMaterial material : XMaterial.VALUES) {
+            if ((all == null || all.matchesAll(material)) && (none == null || none.matchesNone(material))) {
+                materials.add(material);
+            }
+        }
+        return materials;
+    }
+
+    /**
+     * A compiled group of material tags that can be checked against a material
+     * using a few bitwise operations regardless of how many tags are in the group.
+     * This is much faster than calling {@link #isTagged(Enum)} for each tag separately,
+     * so it should be created once (e.g. when loading configs) and reused.
+     *
+     * @since 12.0.0
+     */
+    public static final class TagMask {
+        private final long[] mask;
+
+        private TagMask(long[] mask) {
+            this.mask = mask;
+        }
+
+        /**
+         * Compiles the given tags into a mask.
+         *
+         * @param tags the tags which must be the ones defined in {@link XTag}.
+         * @throws IllegalArgumentException if one of the tags is not a material tag defined in this class.
+         */
+        @SafeVarargs
+        @Nonnull
+        public static TagMask of(@Nonnull XTag<XMaterial>... tags) {
+            return of(Arrays.asList(tags));
+        }
+
+        /**
+         * @see #of(XTag[])
+         */
+        @Nonnull
+        public static TagMask of(@Nonnull Collection<XTag<XMaterial>> tags) {
+            long[] mask = new long[MaterialIndex.WORDS];
+            for (XTag<XMaterial> tag : tags) {
+                Integer index = MaterialIndex.INDICES.get(tag);
+                if (index == null) throw new IllegalArgumentException("Unknown material tag: " + tag);
+                mask[index >>> 6] |= 1L << index;
+            }
+            return new TagMask(mask);
+        }
+
+        /**
+         * Checks if the given material belongs to at least one of the tags.
+         */
+        public boolean matchesAny(@Nullable XMaterial material) {
+            if (material == null) return false;
+            long[] masks = MaterialIndex.MASKS;
+            int base = material.ordinal() * MaterialIndex.WORDS;
+            for (int word = 0; word < mask.length; word++) {
+                if ((masks[base + word] & mask[word]) != 0) return true;
+            }
+            return false;
+        }
 
-        Set<T> newValues;
-        if (this.values.isEmpty()) newValues = EnumSet.copyOf((EnumSet<T>) this.values);
-        else newValues = EnumSet.copyOf(this.values);
+        /**
+         * Checks if the given material belongs to all the tags.
+         */
+        public boolean matchesAll(@Nullable XMaterial material) {
+            if (material == null) return false;
+            long[] masks = MaterialIndex.MASKS;
+            int base = material.ordinal() * MaterialIndex.WORDS;
+            for (int word = 0; word < mask.length; word++) {
+                if ((masks[base + word] & mask[word]) != mask[word]) return false;
+            }
+            return true;
+        }
 
-        for (XTag<T> value : values) {
-            newValues.addAll(value.values);
+        /**
+         * Checks if the given material doesn't belong to any of the tags.
+         */
+        public boolean matchesNone(@Nullable XMaterial material) {
+            return !matchesAny(material);
         }
+    }
+
+    /**
+     * Gets a tag defined in this class by its name.
+     * The name is case-insensitive and can optionally have the {@code minecraft:} namespace,
+     * so {@code LOGS}, {@code logs} and {@code minecraft:logs} all refer to {@link #LOGS}.
+     *
+     * @param name the name of the tag.
+     * @return the tag with this name, or null if there's no such tag.
+     * @see #getName(XTag)
+     * @since 12.0.0
+     */
+    @Nullable
+    public static XTag<?> getTag(@Nonnull String name) {
+        Objects.requireNonNull(name, "Cannot get tag from null name");
+        return TagRegistry.TAGS.get(XMaterial.format(stripNamespace(name)));
+    }
 
-        this.values = Collections.unmodifiableSet(newValues);
+    /**
+     * Gets the name of a tag defined in this class, which is the same as its field name.
+     * The name can be converted back using {@link #getTag(String)}.
+     *
+     * @param tag the tag to get the name of.
+     * @return the name of the tag, or null if it's not defined in this class.
+     * @since 12.0.0
+     */
+    @Nullable
+    public static String getName(@Nonnull XTag<?> tag) {
+        Objects.requireNonNull(tag, "Cannot get name of null tag");
+        return TagRegistry.NAMES.get(tag);
+    }
+
+    /**
+     * All the tags defined in this class mapped by their {@link #getName(XTag) names}, sorted by their names.
+     *
+     * @since 12.0.0
+     */
+    @Nonnull
+    public static Map<String, XTag<?>> getRegisteredTags() {
+        return TagRegistry.TAGS;
+    }
+
+    @Nonnull
+    private static String stripNamespace(@Nonnull String name) {
+        int separator = name.indexOf(':');
+        if (separator == -1) return name;
+
+        String namespace = name.substring(0, separator).trim();
+        return namespace.equalsIgnoreCase("minecraft") ? name.substring(separator + 1) : name;
+    }
+
+    /**
+     * Name lookup tables for the tags defined in this class that are built once using reflection.
+     *
+     * @since 12.0.0
+     */
+    private static final class TagRegistry {
+        private static final Map<String, XTag<?>> TAGS;
+        private static final Map<XTag<?>, String> NAMES;
+        /**
+         * All the distinct {@code XTag<XMaterial>} tags, used by {@link MaterialIndex}.
+         */
+        private static final List<XTag<XMaterial>> MATERIAL_TAGS;
+
+        static {
+            Map<String, XTag<?>> tags = new LinkedHashMap<>();
+            Map<XTag<?>, String> names = new IdentityHashMap<>();
+            List<XTag<XMaterial>> materialTags = new ArrayList<>();
+
+            // The order of getFields() is not specified, so they're sorted to keep the same order everywhere.
+            Field[] fields = XTag.class.getFields();
+            Arrays.sort(fields, Comparator.comparing(Field::getName));
+
+            for (Field field : fields) {
+                if (field.getType() != XTag.class || !Modifier.isStatic(field.getModifiers())) continue;
+                try {
+                    XTag<?> tag = (XTag<?>) field.get(null);
+                    tags.put(field.getName(), tag);
+
+                    // Aliases point to the same tag instance, keep the first name.
+                    if (names.containsKey(tag)) continue;
+                    names.put(tag, field.getName());
+                    if (isMaterialTag(field)) {
+                        @SuppressWarnings("unchecked")
+                        XTag<XMaterial> materialTag = (XTag<XMaterial>) tag;
+                        materialTags.add(materialTag);
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot access tag field: " + field, e);
+                }
+            }
+
+            TAGS = Collections.unmodifiableMap(tags);
+            NAMES = names;
+            MATERIAL_TAGS = materialTags;
+        }
+
+        private static boolean isMaterialTag(Field field) {
+            if (!(field.getGenericType() instanceof ParameterizedType)) return false;
+            Type[] args = ((ParameterizedType) field.getGenericType()).getActualTypeArguments();
+            return args.length == 1 && args[0] == XMaterial.class;
+        }
+    }
+
+    /**
+     * An inverse index of all the material tags defined in this class. Each material
+     * has a bitmask of {@link #WORDS} longs where each bit represents a tag in {@link #TAGS}.
+     * It's only built once it's needed since it has to resolve the values of all the tags.
+     *
+     * @since 12.0.0
+     */
+    private static final class MaterialIndex {
+        private static final XTag<XMaterial>[] TAGS;
+        private static final Map<XTag<?>, Integer> INDICES;
+        private static final int WORDS;
+        /**
+         * Bitmasks of all the materials in a single array, indexed by {@code ordinal * WORDS + word}
+         */
+        private static final long[] MASKS;
+
+        static {
+            @SuppressWarnings("unchecked")
+            XTag<XMaterial>[] tagArray = TagRegistry.MATERIAL_TAGS.toArray(new XTag[0]);
+            TAGS = tagArray;
+            WORDS = (TAGS.length + 63) >>> 6;
+            MASKS = new long[XMaterial.VALUES.length * WORDS];
+            INDICES = new IdentityHashMap<>(TAGS.length);
+
+            for (int i = 0; i < TAGS.length; i++) {
+                INDICES.put(TAGS[i], i);
+                for (XMaterial material : TAGS[i].resolve()) {
+                    MASKS[material.ordinal() * WORDS + (i >>> 6)] |= 1L << i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the values of this tag (and the tags it inherits from) if they're not already built.
+     * Tags only depend on tags that were defined before them, so locking each tag separately can't deadlock.
+     *
+     * @return the raw values of this tag which must not be modified.
+     */
+    @Nonnull
+    private EnumSet<T> resolve() {
+        if (this.values == null) {
+            synchronized (this) {
+                if (this.values == null) {
+                    this.rawValues = this.initializer.get();
+                    this.initializer = null;
+                    this.values = Collections.unmodifiableSet(this.rawValues);
+                }
+            }
+        }
+        return this.rawValues;
+    }
+
+    @SafeVarargs
+    private final XTag<T> without(T... without) {
+        return new XTag<>(() -> {
+            EnumSet<T> newValues = EnumSet.copyOf(this.resolve());
+            for (T value : without) newValues.remove(value);
+            return newValues;
+        });
+    }
+
+    @SafeVarargs
+    private final XTag<T> inheritFrom(@Nonnull XTag<T>... values) {
+        if (this.values != null) throw new IllegalStateException("Cannot inherit values after the tag is resolved");
+        Supplier<EnumSet<T>> base = this.initializer;
+        this.initializer = () -> {
+            EnumSet<T> newValues = base.get();
+            for (XTag<T> value : values) {
+                newValues.addAll(value.resolve());
+            }
+            return newValues;
+        };
         return this;
     }
 }
\ No newline at end of file
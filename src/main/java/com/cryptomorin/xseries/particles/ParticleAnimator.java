@@ -0,0 +1,323 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2024 Crypto Morin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cryptomorin.xseries.particles;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs all the animated effects of {@link Particles} (the methods that return a {@link BooleanSupplier}
+ * or a {@link Runnable}) from a single repeating asynchronous task, instead of scheduling
+ * a new task for each effect.
+ * <pre>{@code
+ * ParticleAnimator animator = new ParticleAnimator(plugin);
+ * ParticleAnimator.Animation helix = animator.schedule(Particles.helix(...), 0, 1);
+ * // Later
+ * helix.cancel();
+ * }</pre>
+ * Effects that are due in the same tick are always run in the order that they were scheduled.
+ * The task is only running while there are effects to run.
+ * <p>
+ * If a worker pool is used, the effects of each tick are split between the workers and
+ * the next tick waits for all of them to finish. In this case, effects that are due in the same tick
+ * may run at the same time, so they should not depend on each other.
+ *
+ * @since 12.0.0
+ */
+public final class ParticleAnimator {
+    private static final Comparator<Animation> ORDER = (first, second) -> {
+        int compare = Long.compare(first.nextTick, second.nextTick);
+        return compare != 0 ? compare : Long.compare(first.sequence, second.sequence);
+    };
+
+    private final Plugin plugin;
+    @Nullable
+    private final ExecutorService workers;
+    private final int parallelism;
+
+    /**
+     * Effects that were scheduled since the last tick. Any thread can add to this.
+     */
+    private final Queue<Animation> pending = new ConcurrentLinkedQueue<>();
+    /**
+     * Only accessed by the tick that is {@link #running}. Ordered by the next tick and then the order they were scheduled in.
+     */
+    private final PriorityQueue<Animation> queue = new PriorityQueue<>(ORDER);
+    private final List<Animation> due = new ArrayList<>();
+    private final Set<Animation> active = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final AtomicLong sequence = new AtomicLong();
+    /**
+     * The scheduler starts the next run of an async task while the previous one is still running
+     * if it took more than a tick, so slow ticks are skipped instead of running at the same time.
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Nullable
+    private BukkitTask task;
+    private volatile long tick;
+    private volatile boolean shutdown;
+
+    /**
+     * Runs all the effects on the scheduler thread.
+     */
+    public ParticleAnimator(@Nonnull Plugin plugin) {
+        this(plugin, 0);
+    }
+
+    /**
+     * @param workers the amount of threads used to run the effects of each tick, or 0 to
+     *                run all the effects on the scheduler thread.
+     */
+    public ParticleAnimator(@Nonnull Plugin plugin, int workers) {
+        if (workers < 0) throw new IllegalArgumentException("Worker count cannot be negative: " + workers);
+        this.plugin = Objects.requireNonNull(plugin, "Plugin cannot be null");
+        this.parallelism = workers;
+        this.workers = workers == 0 ? null : Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "XSeries Particle Animator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs the effect every {@code period} ticks until it returns false or the animation is cancelled.
+     *
+     * @param effect the effect to run.
+     * @param delay  the ticks to wait before running the effect for the first time.
+     * @param period the ticks between each run.
+     */
+    @Nonnull
+    public Animation schedule(@Nonnull BooleanSupplier effect, long delay, long period) {
+        Objects.requireNonNull(effect, "Cannot schedule null effect");
+        if (delay < 0) throw new IllegalArgumentException("Delay cannot be negative: " + delay);
+        if (period <= 0) throw new IllegalArgumentException("Period must be positive: " + period);
+
+        Animation animation = new Animation(effect, delay, period, sequence.getAndIncrement());
+        synchronized (this) {
+            if (shutdown) throw new IllegalStateException("Animator is already shutdown");
+            active.add(animation);
+            pending.add(animation);
+            if (task == null) task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::tick, 1L, 1L);
+        }
+        return animation;
+    }
+
+    /**
+     * Runs the effect every {@code period} ticks until the animation is cancelled.
+     *
+     * @see #schedule(BooleanSupplier, long, long)
+     */
+    @Nonnull
+    public Animation schedule(@Nonnull Runnable effect, long delay, long period) {
+        Objects.requireNonNull(effect, "Cannot schedule null effect");
+        return schedule(() -> {
+            effect.run();
+            return true;
+        }, delay, period);
+    }
+
+    /**
+     * Cancels all the animations and stops the task and the workers.
+     * Nothing can be scheduled after this.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            if (task != null) {
+                task.cancel();
+                task = null;
+            }
+        }
+        for (Animation animation : active) animation.cancel();
+        active.clear();
+        if (workers != null) workers.shutdownNow();
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * @return the amount of animations that are still running.
+     */
+    public int size() {
+        return active.size();
+    }
+
+    /**
+     * The ticks that passed since the animator was created (only counts the ticks that the task was running.)
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    private void tick() {
+        if (!running.compareAndSet(false, true)) return;
+        try {
+            runTick();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void runTick() {
+        long tick = ++this.tick;
+
+        Animation animation;
+        while ((animation = pending.poll()) != null) {
+            animation.nextTick = tick + animation.delay;
+            queue.add(animation);
+        }
+
+        while (!queue.isEmpty() && queue.peek().nextTick <= tick) {
+            animation = queue.poll();
+            if (animation.cancelled) active.remove(animation);
+            else due.add(animation);
+        }
+
+        try {
+            if (workers == null || due.size() < 2) {
+                for (Animation each : due) each.run();
+            } else {
+                runInParallel();
+            }
+
+            for (Animation each : due) {
+                if (each.cancelled) {
+                    active.remove(each);
+                    continue;
+                }
+                each.nextTick = tick + each.period;
+                queue.add(each);
+            }
+        } finally {
+            due.clear();
+        }
+
+        synchronized (this) {
+            if (queue.isEmpty() && pending.isEmpty() && task != null) {
+                task.cancel();
+                task = null;
+            }
+        }
+    }
+
+    private void runInParallel() {
+        int chunks = Math.min(parallelism, due.size());
+        int chunkSize = (due.size() + chunks - 1) / chunks;
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+
+        for (int start = 0; start < due.size(); start += chunkSize) {
+            // Each worker runs a continuous part of the due effects in order.
+            List<Animation> chunk = due.subList(start, Math.min(start + chunkSize, due.size()));
+            tasks.add(() -> {
+                for (Animation animation : chunk) animation.run();
+                return null;
+            });
+        }
+
+        try {
+            workers.invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException ex) {
+            // Shutdown while the tick was running.
+            for (Animation animation : due) animation.cancel();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ParticleAnimator{plugin=" + plugin + ", tick=" + tick + ", workers=" + parallelism + ", shutdown=" + shutdown + '}';
+    }
+
+    /**
+     * A handle to an effect scheduled by {@link ParticleAnimator}.
+     */
+    public static final class Animation {
+        private final BooleanSupplier effect;
+        private final long delay, period, sequence;
+        private long nextTick;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        private Animation(BooleanSupplier effect, long delay, long period, long sequence) {
+            this.effect = effect;
+            this.delay = delay;
+            this.period = period;
+            this.sequence = sequence;
+        }
+
+        private void run() {
+            if (cancelled) return;
+            try {
+                if (!effect.getAsBoolean()) {
+                    done = true;
+                    cancelled = true;
+                }
+            } catch (Throwable ex) {
+                // Don't let a broken effect stop the other effects.
+                cancelled = true;
+                ex.printStackTrace();
+            }
+        }
+
+        /**
+         * Stops the effect. It will not run again, even if it's in the middle of a tick.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * @return true if the animation was cancelled, finished or failed.
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return true if the effect itself finished by returning false.
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        public long getPeriod() {
+            return period;
+        }
+
+        @Override
+        public String toString() {
+            return "Animation{effect=" + effect + ", period=" + period + ", cancelled=" + cancelled + ", done=" + done + '}';
+        }
+    }
+}
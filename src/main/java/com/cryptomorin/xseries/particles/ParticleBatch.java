@@ -0,0 +1,455 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2024 Crypto Morin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cryptomorin.xseries.particles;
+
+import com.cryptomorin.xseries.reflection.minecraft.MinecraftClassHandle;
+import com.cryptomorin.xseries.reflection.minecraft.MinecraftConnection;
+import com.cryptomorin.xseries.reflection.minecraft.MinecraftMapping;
+import com.cryptomorin.xseries.reflection.minecraft.MinecraftPackage;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.util.*;
+
+import static com.cryptomorin.xseries.reflection.XReflection.of;
+import static com.cryptomorin.xseries.reflection.XReflection.ofMinecraft;
+
+/**
+ * Collects the particles of a shape and sends them all at once when {@link #flush() flushed}.
+ * Normally each point of a shape is sent with a separate {@code spawnParticle} call which builds
+ * its own packet and might flush the player's connection every time.
+ * <pre>{@code
+ * ParticleBatch batch = new ParticleBatch();
+ * display.withBatch(batch);
+ * Particles.sphere(3, 50, display);
+ * display.withBatch(null);
+ * batch.flush();
+ * }</pre>
+ * When flushed, the particle packets of each player are built in one pass and written to
+ * their connection with a single flush. In 1.19.4 and above, the packets are also grouped in
+ * bundle packets, so the client handles them together.
+ * <p>
+ * If the packets can't be built on this server (see {@link #isSupported()}), the particles are
+ * spawned normally when flushed. Not thread-safe, just like {@link ParticleDisplay}.
+ *
+ * @since 12.0.0
+ */
+public final class ParticleBatch {
+    /**
+     * The client rejects bundles with more packets than this.
+     */
+    private static final int MAX_BUNDLE_SIZE = 4096;
+    /**
+     * The distance that the server sends particles to the players in, and the distance used
+     * for {@code force} particles.
+     */
+    private static final double RANGE_SQUARED = 32 * 32, FORCE_RANGE_SQUARED = 512 * 512;
+
+    /**
+     * {@code CraftParticle#createParticleParam(Particle, Object)} or {@code CraftParticle#toNMS(Particle, Object)}
+     * Null if the packets can't be built on this server.
+     */
+    @Nullable
+    private static final MethodHandle PARTICLE_OPTIONS, PACKET;
+    /**
+     * The format of the {@link #PACKET} constructor. 0 uses float coordinates (1.13-1.14),
+     * 1 uses double coordinates and 2 also has the {@code alwaysShow} flag (1.21.4+)
+     */
+    private static final int PACKET_FORMAT;
+    /**
+     * {@code ClientboundBundlePacket} added in 1.19.4, null if it's not available.
+     */
+    @Nullable
+    private static final MethodHandle BUNDLE;
+
+    static {
+        MethodHandle options = null, packet = null, bundle = null;
+        int format = 0;
+
+        try {
+            MinecraftClassHandle particleOptions = ofMinecraft()
+                    .inPackage(MinecraftPackage.NMS, "core.particles")
+                    .map(MinecraftMapping.MOJANG, "ParticleOptions")
+                    .map(MinecraftMapping.SPIGOT, "ParticleParam");
+            MinecraftClassHandle particlePacket = ofMinecraft()
+                    .inPackage(MinecraftPackage.NMS, "network.protocol.game")
+                    .map(MinecraftMapping.MOJANG, "ClientboundLevelParticlesPacket")
+                    .map(MinecraftMapping.SPIGOT, "PacketPlayOutWorldParticles");
+
+            options = ofMinecraft()
+                    .inPackage(MinecraftPackage.CB)
+                    .named("CraftParticle")
+                    .method().asStatic()
+                    .named("createParticleParam", "toNMS")
+                    .returns(particleOptions)
+                    .parameters(Particle.class, Object.class)
+                    .reflect();
+
+            // The constructors are tried from the newest to the oldest.
+            try {
+                packet = particlePacket.constructor(particleOptions, of(boolean.class), of(boolean.class),
+                        of(double.class), of(double.class), of(double.class),
+                        of(float.class), of(float.class), of(float.class), of(float.class), of(int.class)).reflect();
+                format = 2;
+            } catch (ReflectiveOperationException ignored) {
+            }
+            if (packet == null) {
+                try {
+                    packet = particlePacket.constructor(particleOptions, of(boolean.class),
+                            of(double.class), of(double.class), of(double.class),
+                            of(float.class), of(float.class), of(float.class), of(float.class), of(int.class)).reflect();
+                    format = 1;
+                } catch (ReflectiveOperationException ignored) {
+                }
+            }
+            if (packet == null) {
+                packet = particlePacket.constructor(particleOptions, of(boolean.class),
+                        of(float.class), of(float.class), of(float.class),
+                        of(float.class), of(float.class), of(float.class), of(float.class), of(int.class)).reflect();
+                format = 0;
+            }
+        } catch (Throwable ignored) {
+            // Also happens when the server itself isn't available (e.g. unit tests)
+            options = null;
+            packet = null;
+        }
+
+        if (packet != null) {
+            try {
+                bundle = ofMinecraft()
+                        .inPackage(MinecraftPackage.NMS, "network.protocol.game")
+                        .named("ClientboundBundlePacket")
+                        .constructor(Iterable.class)
+                        .reflect();
+            } catch (Throwable ignored) {
+            }
+        }
+
+        PARTICLE_OPTIONS = options;
+        PACKET = packet;
+        PACKET_FORMAT = format;
+        BUNDLE = bundle;
+    }
+
+    /**
+     * The {@link World} for particles that are sent to everyone near them, or the {@link Player} that the particle is sent to.
+     */
+    private Object[] targets;
+    private Particle[] particles;
+    private Object[] data;
+    /**
+     * Packed x, y, z, offset x, offset y, offset z and extra values.
+     */
+    private double[] values;
+    private int[] counts;
+    private boolean[] forces;
+    private int size;
+
+    public ParticleBatch() {
+        this(32);
+    }
+
+    /**
+     * @param capacity the amount of particles that this batch is expected to have.
+     *                 The batch still grows if more particles are added.
+     */
+    public ParticleBatch(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Batch capacity must be positive: " + capacity);
+        targets = new Object[capacity];
+        particles = new Particle[capacity];
+        data = new Object[capacity];
+        values = new double[capacity * 7];
+        counts = new int[capacity];
+        forces = new boolean[capacity];
+    }
+
+    /**
+     * @return true if the particle packets can be built on this server.
+     * Otherwise, the particles are spawned normally when the batch is flushed.
+     */
+    public static boolean isSupported() {
+        return PACKET != null;
+    }
+
+    /**
+     * Adds a particle that is sent to all the players near it, same as
+     * {@link World#spawnParticle(Particle, double, double, double, int, double, double, double, double, Object, boolean)}
+     *
+     * @param force if true, the particle is sent to players up to 512 blocks away instead of 32.
+     */
+    public void add(@Nonnull World world, @Nonnull Particle particle, double x, double y, double z,
+                    int count, double offsetX, double offsetY, double offsetZ, double extra, @Nullable Object data, boolean force) {
+        Objects.requireNonNull(world, "Cannot add particle with null world");
+        add((Object) world, particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data, force);
+    }
+
+    /**
+     * Adds a particle that is only sent to the player, same as
+     * {@link Player#spawnParticle(Particle, double, double, double, int, double, double, double, double, Object)}
+     */
+    public void add(@Nonnull Player player, @Nonnull Particle particle, double x, double y, double z,
+                    int count, double offsetX, double offsetY, double offsetZ, double extra, @Nullable Object data) {
+        Objects.requireNonNull(player, "Cannot add particle for null player");
+        // Particles sent to a single player are always forced by the server.
+        add((Object) player, particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data, true);
+    }
+
+    private void add(Object target, Particle particle, double x, double y, double z,
+                     int count, double offsetX, double offsetY, double offsetZ, double extra, Object data, boolean force) {
+        Objects.requireNonNull(particle, "Cannot add null particle");
+        if (size == targets.length) grow();
+
+        int index = size++;
+        targets[index] = target;
+        particles[index] = particle;
+        this.data[index] = data;
+        counts[index] = count;
+        forces[index] = force;
+
+        int i = index * 7;
+        values[i] = x;
+        values[i + 1] = y;
+        values[i + 2] = z;
+        values[i + 3] = offsetX;
+        values[i + 4] = offsetY;
+        values[i + 5] = offsetZ;
+        values[i + 6] = extra;
+    }
+
+    private void grow() {
+        int capacity = targets.length * 2;
+        targets = Arrays.copyOf(targets, capacity);
+        particles = Arrays.copyOf(particles, capacity);
+        data = Arrays.copyOf(data, capacity);
+        values = Arrays.copyOf(values, capacity * 7);
+        counts = Arrays.copyOf(counts, capacity);
+        forces = Arrays.copyOf(forces, capacity);
+    }
+
+    /**
+     * @return the amount of particles waiting to be sent.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all the particles without sending them.
+     */
+    public void clear() {
+        Arrays.fill(targets, 0, size, null);
+        Arrays.fill(particles, 0, size, null);
+        Arrays.fill(data, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Sends all the collected particles and clears the batch, so it can be used again.
+     */
+    public void flush() {
+        if (size == 0) return;
+        try {
+            if (PACKET == null) spawnAll();
+            else sendAll();
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * Starts collecting the particles of a shape with the display, unless it's already collected by another batch.
+     *
+     * @return the batch that should be {@link #end(ParticleDisplay) ended} after the shape is spawned,
+     * or null if the particles should just be spawned normally.
+     */
+    @Nullable
+    static ParticleBatch begin(@Nonnull ParticleDisplay display) {
+        if (PACKET == null || display.getBatch() != null) return null;
+        ParticleBatch batch = new ParticleBatch();
+        display.withBatch(batch);
+        return batch;
+    }
+
+    /**
+     * Stops collecting the particles of the display and sends them.
+     */
+    void end(@Nonnull ParticleDisplay display) {
+        display.withBatch(null);
+        flush();
+    }
+
+    private void sendAll() {
+        // Built for each flush, so a batch that's kept around doesn't keep the players or their packets.
+        Map<Player, List<Object>> packets = new HashMap<>();
+        Map<World, Nearby> worlds = new HashMap<>();
+
+        // Most shapes use the same particle and data for all their points.
+        Particle lastParticle = null;
+        Object lastData = null, options = null;
+
+        for (int index = 0; index < size; index++) {
+            Particle particle = particles[index];
+            Object data = this.data[index];
+            if (options == null || particle != lastParticle || data != lastData) {
+                options = createOptions(particle, data);
+                lastParticle = particle;
+                lastData = data;
+            }
+
+            int i = index * 7;
+            double x = values[i], y = values[i + 1], z = values[i + 2];
+            Object packet = createPacket(options, forces[index], x, y, z,
+                    values[i + 3], values[i + 4], values[i + 5], values[i + 6], counts[index]);
+
+            Object target = targets[index];
+            if (target instanceof Player) {
+                Player player = (Player) target;
+                if (player.isOnline()) packets.computeIfAbsent(player, k -> new ArrayList<>()).add(packet);
+                continue;
+            }
+
+            Nearby nearby = worlds.computeIfAbsent((World) target, Nearby::new);
+            double range = forces[index] ? FORCE_RANGE_SQUARED : RANGE_SQUARED;
+            for (int p = 0; p < nearby.players.length; p++) {
+                int xyz = p * 3;
+                double dx = x - nearby.positions[xyz];
+                double dy = y - nearby.positions[xyz + 1];
+                double dz = z - nearby.positions[xyz + 2];
+                if (dx * dx + dy * dy + dz * dz < range) {
+                    packets.computeIfAbsent(nearby.players[p], k -> new ArrayList<>()).add(packet);
+                }
+            }
+        }
+
+        // A player that fails to receive the particles shouldn't stop the others from receiving them.
+        RuntimeException failure = null;
+        for (Map.Entry<Player, List<Object>> entry : packets.entrySet()) {
+            try {
+                MinecraftConnection.sendPackets(Collections.singletonList(entry.getKey()), bundle(entry.getValue()));
+            } catch (RuntimeException ex) {
+                if (failure == null) failure = ex;
+                else failure.addSuppressed(ex);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Groups the packets in bundles if they're supported.
+     */
+    private static Object[] bundle(List<Object> packets) {
+        if (BUNDLE == null || packets.size() < 2) return packets.toArray();
+
+        Object[] bundles = new Object[(packets.size() + MAX_BUNDLE_SIZE - 1) / MAX_BUNDLE_SIZE];
+        for (int i = 0; i < bundles.length; i++) {
+            int from = i * MAX_BUNDLE_SIZE;
+            // The bundle keeps the list itself, so it needs its own copy.
+            List<Object> bundled = new ArrayList<>(packets.subList(from, Math.min(from + MAX_BUNDLE_SIZE, packets.size())));
+            try {
+                bundles[i] = BUNDLE.invoke(bundled);
+            } catch (Throwable throwable) {
+                throw new RuntimeException("Failed to create bundle packet for " + bundled.size() + " packets", throwable);
+            }
+        }
+        return bundles;
+    }
+
+    private static Object createOptions(Particle particle, Object data) {
+        try {
+            return PARTICLE_OPTIONS.invoke(particle, data);
+        } catch (Throwable throwable) {
+            throw new RuntimeException("Failed to create particle options for " + particle + " with data " + data, throwable);
+        }
+    }
+
+    private static Object createPacket(Object options, boolean force, double x, double y, double z,
+                                       double offsetX, double offsetY, double offsetZ, double extra, int count) {
+        try {
+            switch (PACKET_FORMAT) {
+                case 2:
+                    return PACKET.invoke(options, force, false, x, y, z,
+                            (float) offsetX, (float) offsetY, (float) offsetZ, (float) extra, count);
+                case 1:
+                    return PACKET.invoke(options, force, x, y, z,
+                            (float) offsetX, (float) offsetY, (float) offsetZ, (float) extra, count);
+                default:
+                    return PACKET.invoke(options, force, (float) x, (float) y, (float) z,
+                            (float) offsetX, (float) offsetY, (float) offsetZ, (float) extra, count);
+            }
+        } catch (Throwable throwable) {
+            throw new RuntimeException("Failed to create particle packet for " + options, throwable);
+        }
+    }
+
+    /**
+     * Used when the packets can't be built on this server.
+     */
+    private void spawnAll() {
+        for (int index = 0; index < size; index++) {
+            int i = index * 7;
+            Particle particle = particles[index];
+            double x = values[i], y = values[i + 1], z = values[i + 2];
+            double offsetX = values[i + 3], offsetY = values[i + 4], offsetZ = values[i + 5], extra = values[i + 6];
+            int count = counts[index];
+            Object data = this.data[index];
+
+            Object target = targets[index];
+            if (target instanceof Player) {
+                ((Player) target).spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data);
+            } else if (forces[index]) {
+                ((World) target).spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data, true);
+            } else {
+                ((World) target).spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ParticleBatch{size=" + size + ", supported=" + isSupported() + ", bundles=" + (BUNDLE != null) + '}';
+    }
+
+    /**
+     * The positions of the players in a world when the batch was flushed.
+     */
+    private static final class Nearby {
+        private final Player[] players;
+        private final double[] positions;
+
+        private Nearby(World world) {
+            List<Player> players = world.getPlayers();
+            this.players = players.toArray(new Player[0]);
+            this.positions = new double[this.players.length * 3];
+            for (int i = 0; i < this.players.length; i++) {
+                Location location = this.players[i].getLocation();
+                positions[i * 3] = location.getX();
+                positions[i * 3 + 1] = location.getY();
+                positions[i * 3 + 2] = location.getZ();
+            }
+        }
+    }
+}
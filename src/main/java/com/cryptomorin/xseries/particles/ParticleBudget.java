@@ -0,0 +1,304 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2024 Crypto Morin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cryptomorin.xseries.particles;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the amount of particles that {@link ParticleDisplay} spawns in each tick.
+ * <pre>{@code
+ * ParticleBudget.setGlobal(new ParticleBudget(20_000, 2_000));
+ * }</pre>
+ * There are two limits. The global limit counts all the particles spawned, and the player limit
+ * counts the particles sent to each player when {@link ParticleDisplay#onlyVisibleTo(Player...)} is used.
+ * Particles over these limits are not spawned.
+ * <p>
+ * Before a limit is even reached, the budget lowers the <b>detail</b> of all the shapes evenly by skipping
+ * some of their points (e.g. a detail of 0.5 skips every other point.) The detail is lowered when:
+ * <ul>
+ *     <li>More particles were requested in the last tick than the global limit allows.</li>
+ *     <li>The server is lagging. On Paper this uses the average tick time (MSPT), otherwise
+ *     {@link #track(Plugin)} has to be called to measure the TPS.</li>
+ * </ul>
+ * A tick here is a 50ms window, since most of the particles are spawned asynchronously.
+ *
+ * @since 12.0.0
+ */
+public final class ParticleBudget {
+    private static final long TICK_NANOS = 50_000_000L;
+    /**
+     * How many ticks to wait before removing the usage of players that no longer spawn particles.
+     */
+    private static final long PLAYER_EXPIRY_TICKS = 20 * 60;
+
+    /**
+     * Paper's {@code Server#getAverageTickTime()}
+     */
+    @Nullable
+    private static final MethodHandle AVERAGE_TICK_TIME;
+
+    static {
+        MethodHandle averageTickTime = null;
+        try {
+            averageTickTime = MethodHandles.publicLookup().findVirtual(Server.class, "getAverageTickTime", MethodType.methodType(double.class));
+        } catch (NoSuchMethodException | IllegalAccessException ignored) {
+        }
+        AVERAGE_TICK_TIME = averageTickTime;
+    }
+
+    @Nullable
+    private static volatile ParticleBudget global;
+
+    private final int maxParticlesPerTick, maxParticlesPerPlayer;
+    private double minDetail = 0.25;
+    private double targetMspt = 40;
+
+    private final AtomicInteger used = new AtomicInteger(), requested = new AtomicInteger();
+    private final Map<UUID, PlayerUsage> players = new ConcurrentHashMap<>();
+    private volatile long tick = Long.MIN_VALUE;
+    private long lastCleanup;
+    private volatile double detail = 1;
+
+    /**
+     * The average time between two ticks in nanoseconds measured by {@link #track(Plugin)}, or 0 if not tracked.
+     */
+    private volatile double tickInterval;
+    private long lastTickNanos;
+
+    /**
+     * @param maxParticlesPerTick   the maximum particles spawned by all the displays in a tick,
+     *                              or {@link Integer#MAX_VALUE} for no limit.
+     * @param maxParticlesPerPlayer the maximum particles sent to a single player in a tick,
+     *                              or {@link Integer#MAX_VALUE} for no limit.
+     */
+    public ParticleBudget(int maxParticlesPerTick, int maxParticlesPerPlayer) {
+        if (maxParticlesPerTick <= 0)
+            throw new IllegalArgumentException("Max particles per tick must be positive: " + maxParticlesPerTick);
+        if (maxParticlesPerPlayer <= 0)
+            throw new IllegalArgumentException("Max particles per player must be positive: " + maxParticlesPerPlayer);
+        this.maxParticlesPerTick = maxParticlesPerTick;
+        this.maxParticlesPerPlayer = maxParticlesPerPlayer;
+    }
+
+    /**
+     * @return the budget used by all the displays that don't have their own budget, or null if there's no limit.
+     */
+    @Nullable
+    public static ParticleBudget getGlobal() {
+        return global;
+    }
+
+    /**
+     * @param budget the budget used by all the displays that don't have their own budget, or null to remove the limit.
+     * @see ParticleDisplay#withBudget(ParticleBudget)
+     */
+    public static void setGlobal(@Nullable ParticleBudget budget) {
+        global = budget;
+    }
+
+    /**
+     * The lowest detail that the shapes can be lowered to because of lag.
+     * The detail can still be lower than this if the global limit is reached.
+     *
+     * @param minDetail between 0 (exclusive) and 1. Defaults to 0.25
+     */
+    @Nonnull
+    public ParticleBudget minDetail(double minDetail) {
+        if (minDetail <= 0 || minDetail > 1)
+            throw new IllegalArgumentException("Min detail must be between 0 and 1: " + minDetail);
+        this.minDetail = minDetail;
+        return this;
+    }
+
+    /**
+     * The MSPT that the detail starts to be lowered at. At 50 MSPT the detail will be {@link #minDetail(double)}.
+     * This is only used for servers that report their MSPT.
+     *
+     * @param targetMspt between 0 and 50 (exclusive). Defaults to 40
+     */
+    @Nonnull
+    public ParticleBudget targetMspt(double targetMspt) {
+        if (targetMspt <= 0 || targetMspt >= 50)
+            throw new IllegalArgumentException("Target MSPT must be between 0 and 50: " + targetMspt);
+        this.targetMspt = targetMspt;
+        return this;
+    }
+
+    /**
+     * Measures the TPS with a repeating task for servers that don't report their MSPT.
+     * The task should be cancelled when the plugin doesn't spawn particles anymore.
+     */
+    @Nonnull
+    public BukkitTask track(@Nonnull Plugin plugin) {
+        Objects.requireNonNull(plugin, "Plugin cannot be null");
+        return Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            long now = System.nanoTime();
+            if (lastTickNanos != 0) {
+                double interval = now - lastTickNanos;
+                // Exponential moving average, so a single slow tick doesn't change the detail too much.
+                tickInterval = tickInterval == 0 ? interval : tickInterval * 0.9 + interval * 0.1;
+            }
+            lastTickNanos = now;
+        }, 1L, 1L);
+    }
+
+    /**
+     * @return the current detail of the shapes between 0 (exclusive) and 1.
+     */
+    public double getDetail() {
+        update();
+        return detail;
+    }
+
+    /**
+     * @return the particles spawned in the current tick.
+     */
+    public int getUsed() {
+        update();
+        return used.get();
+    }
+
+    /**
+     * Called for each point of a display before it's spawned.
+     *
+     * @param amount the amount of particles the point has.
+     * @return true if the point should be spawned.
+     */
+    boolean tryAcquire(@Nonnull ParticleDisplay display, int amount) {
+        update();
+        requested.addAndGet(amount);
+
+        double detail = this.detail;
+        if (detail < 1) {
+            // Skips points evenly, e.g. a detail of 0.25 only spawns every 4th point.
+            display.detailProgress += detail;
+            if (display.detailProgress < 1) return false;
+            display.detailProgress -= 1;
+        }
+
+        return used.addAndGet(amount) <= maxParticlesPerTick;
+    }
+
+    /**
+     * Called for each player that a point is sent to with {@link ParticleDisplay#onlyVisibleTo(Player...)}.
+     *
+     * @return true if the particles should be sent to the player.
+     */
+    boolean tryAcquire(@Nonnull Player player, int amount) {
+        if (maxParticlesPerPlayer == Integer.MAX_VALUE) return true;
+        long tick = this.tick;
+        PlayerUsage usage = players.computeIfAbsent(player.getUniqueId(), k -> new PlayerUsage());
+        synchronized (usage) {
+            if (usage.tick != tick) {
+                usage.tick = tick;
+                usage.used = 0;
+            }
+            usage.used += amount;
+            return usage.used <= maxParticlesPerPlayer;
+        }
+    }
+
+    private void update() {
+        long tick = currentTick();
+        if (tick == this.tick) return;
+
+        synchronized (this) {
+            if (tick == this.tick) return;
+            boolean consecutive = tick == this.tick + 1;
+            this.tick = tick;
+
+            // Spread the budget evenly between everything that requested particles in the last tick.
+            int requested = this.requested.getAndSet(0);
+            used.set(0);
+            double demand = consecutive && requested > maxParticlesPerTick ? (double) maxParticlesPerTick / requested : 1;
+            detail = Math.min(demand, getLagDetail());
+
+            if (tick - lastCleanup >= PLAYER_EXPIRY_TICKS) {
+                lastCleanup = tick;
+                players.values().removeIf(usage -> tick - usage.tick > PLAYER_EXPIRY_TICKS);
+            }
+        }
+    }
+
+    /**
+     * @return the current 50ms window.
+     */
+    static long currentTick() {
+        return System.nanoTime() / TICK_NANOS;
+    }
+
+    /**
+     * @return the detail based on how much the server is lagging.
+     */
+    private double getLagDetail() {
+        // How close the server is to lagging. 0 means no lag and 1 means lagging.
+        double pressure;
+        if (AVERAGE_TICK_TIME != null) {
+            double mspt;
+            try {
+                mspt = (double) AVERAGE_TICK_TIME.invoke(Bukkit.getServer());
+            } catch (Throwable ex) {
+                return 1;
+            }
+            pressure = (mspt - targetMspt) / (50 - targetMspt);
+        } else if (tickInterval != 0) {
+            // 1 TPS of tolerance. A tick interval of 1s/19 means no lag, and 1s/15 means lagging.
+            double tps = 1_000_000_000 / tickInterval;
+            pressure = (19 - tps) / (19 - 15);
+        } else {
+            return 1;
+        }
+
+        if (pressure <= 0) return 1;
+        if (pressure >= 1) return minDetail;
+        return 1 - pressure * (1 - minDetail);
+    }
+
+    @Override
+    public String toString() {
+        return "ParticleBudget{maxParticlesPerTick=" + maxParticlesPerTick +
+                ", maxParticlesPerPlayer=" + maxParticlesPerPlayer +
+                ", minDetail=" + minDetail +
+                ", targetMspt=" + targetMspt +
+                ", detail=" + detail + '}';
+    }
+
+    private static final class PlayerUsage {
+        private long tick;
+        private int used;
+    }
+}
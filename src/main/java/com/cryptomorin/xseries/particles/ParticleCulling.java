@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2024 Crypto Morin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cryptomorin.xseries.particles;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Decides which players each particle of a {@link ParticleDisplay} is sent to.
+ * Normally particles are sent to every player near them with the same density.
+ * With culling, the particles are sent to each player separately and are skipped for players
+ * that are too far, looking away from them or far enough to not notice the missing points.
+ * <pre>{@code
+ * ParticleCulling culling = new ParticleCulling(48)
+ *         .fieldOfView(140, 6)
+ *         .detailTier(16, 2)
+ *         .detailTier(32, 4);
+ * ParticleCulling.setGlobal(culling);
+ * }</pre>
+ * The players and where they're looking are only updated every 50ms for each display,
+ * so big shapes don't have to look them up for each point.
+ *
+ * @since 12.0.0
+ */
+public final class ParticleCulling {
+    @Nullable
+    private static volatile ParticleCulling global;
+
+    private final double maxDistanceSquared;
+    private double nearDistanceSquared;
+    /**
+     * The cosine of half of the field of view. -1 means everything is visible.
+     */
+    private double minViewCos = -1;
+    private double[] tierDistancesSquared = new double[0];
+    private int[] tierStrides = new int[0];
+
+    /**
+     * @param maxDistance the maximum distance between a player's eyes and a particle.
+     *                    The client doesn't render normal particles that are more than 32 blocks away.
+     */
+    public ParticleCulling(double maxDistance) {
+        if (maxDistance <= 0) throw new IllegalArgumentException("Max distance must be positive: " + maxDistance);
+        this.maxDistanceSquared = maxDistance * maxDistance;
+    }
+
+    /**
+     * @return the culling used by all the displays that don't have their own culling,
+     * or null if the particles should be sent to everyone normally.
+     */
+    @Nullable
+    public static ParticleCulling getGlobal() {
+        return global;
+    }
+
+    /**
+     * @see ParticleDisplay#withCulling(ParticleCulling)
+     */
+    public static void setGlobal(@Nullable ParticleCulling culling) {
+        global = culling;
+    }
+
+    /**
+     * Skips the particles that are outside the player's view.
+     *
+     * @param degrees      the field of view of players. The default FOV of the client is 70 vertically,
+     *                     which is a lot wider horizontally, so this should be a lot higher to account for
+     *                     the particles that last for a while and players turning around.
+     * @param nearDistance the particles closer than this are always sent, no matter where the player is looking.
+     */
+    @Nonnull
+    public ParticleCulling fieldOfView(double degrees, double nearDistance) {
+        if (degrees <= 0 || degrees > 360) throw new IllegalArgumentException("Field of view must be between 0 and 360: " + degrees);
+        if (nearDistance < 0) throw new IllegalArgumentException("Near distance cannot be negative: " + nearDistance);
+        this.minViewCos = Math.cos(Math.toRadians(degrees / 2));
+        this.nearDistanceSquared = nearDistance * nearDistance;
+        return this;
+    }
+
+    /**
+     * Players that are farther than the given distance only receive one of every {@code stride} points of a shape.
+     * If multiple tiers match a player, the farthest one is used.
+     *
+     * @param distance the distance from the player's eyes.
+     * @param stride   2 skips every other point, 3 sends every third point and so on.
+     */
+    @Nonnull
+    public ParticleCulling detailTier(double distance, int stride) {
+        if (distance < 0) throw new IllegalArgumentException("Tier distance cannot be negative: " + distance);
+        if (stride < 1) throw new IllegalArgumentException("Tier stride must be at least 1: " + stride);
+
+        int index = 0;
+        double distanceSquared = distance * distance;
+        while (index < tierDistancesSquared.length && tierDistancesSquared[index] < distanceSquared) index++;
+
+        double[] distances = new double[tierDistancesSquared.length + 1];
+        int[] strides = new int[tierStrides.length + 1];
+        System.arraycopy(tierDistancesSquared, 0, distances, 0, index);
+        System.arraycopy(tierStrides, 0, strides, 0, index);
+        distances[index] = distanceSquared;
+        strides[index] = stride;
+        System.arraycopy(tierDistancesSquared, index, distances, index + 1, tierDistancesSquared.length - index);
+        System.arraycopy(tierStrides, index, strides, index + 1, tierStrides.length - index);
+
+        this.tierDistancesSquared = distances;
+        this.tierStrides = strides;
+        return this;
+    }
+
+    /**
+     * Gets the players that can see the particles of the display in this tick.
+     *
+     * @param world the world of the particle.
+     */
+    @Nonnull
+    Viewers getViewers(@Nonnull ParticleDisplay display, @Nonnull World world) {
+        long tick = ParticleBudget.currentTick();
+        Viewers viewers = display.viewers;
+        if (viewers != null && viewers.tick == tick && viewers.world == world) return viewers;
+
+        if (viewers == null) display.viewers = viewers = new Viewers();
+        viewers.tick = tick;
+        viewers.world = world;
+        viewers.size = 0;
+
+        Collection<? extends Player> players = display.getPlayers();
+        if (players == null) players = world.getPlayers();
+        viewers.ensureCapacity(players.size());
+
+        for (Player player : players) {
+            Location eye = player.getEyeLocation();
+            if (eye.getWorld() != world) continue;
+
+            int index = viewers.size++;
+            int xyz = index * 3;
+            viewers.players[index] = player;
+            viewers.eyes[xyz] = eye.getX();
+            viewers.eyes[xyz + 1] = eye.getY();
+            viewers.eyes[xyz + 2] = eye.getZ();
+            if (minViewCos != -1) {
+                Vector direction = eye.getDirection();
+                viewers.directions[xyz] = direction.getX();
+                viewers.directions[xyz + 1] = direction.getY();
+                viewers.directions[xyz + 2] = direction.getZ();
+            }
+        }
+
+        // Don't keep references to players that left.
+        Arrays.fill(viewers.players, viewers.size, viewers.players.length, null);
+        return viewers;
+    }
+
+    /**
+     * @param viewer the index of the player in the viewers.
+     * @return how many points this player should skip between each point it receives,
+     * or 0 if the player can't see the particle at all.
+     */
+    int getStride(@Nonnull Viewers viewers, int viewer, double x, double y, double z) {
+        int xyz = viewer * 3;
+        double dx = x - viewers.eyes[xyz];
+        double dy = y - viewers.eyes[xyz + 1];
+        double dz = z - viewers.eyes[xyz + 2];
+        double distanceSquared = dx * dx + dy * dy + dz * dz;
+        if (distanceSquared > maxDistanceSquared) return 0;
+
+        if (minViewCos != -1 && distanceSquared > nearDistanceSquared) {
+            double dot = dx * viewers.directions[xyz] + dy * viewers.directions[xyz + 1] + dz * viewers.directions[xyz + 2];
+            if (dot < minViewCos * Math.sqrt(distanceSquared)) return 0;
+        }
+
+        int stride = 1;
+        for (int i = 0; i < tierDistancesSquared.length; i++) {
+            if (distanceSquared <= tierDistancesSquared[i]) break;
+            stride = tierStrides[i];
+        }
+        return stride;
+    }
+
+    @Override
+    public String toString() {
+        return "ParticleCulling{maxDistance=" + Math.sqrt(maxDistanceSquared) +
+                ", fieldOfView=" + Math.toDegrees(Math.acos(minViewCos)) * 2 +
+                ", nearDistance=" + Math.sqrt(nearDistanceSquared) +
+                ", tierStrides=" + Arrays.toString(tierStrides) + '}';
+    }
+
+    /**
+     * A snapshot of the players that might see the particles of a display, their eye positions and
+     * where they're looking at. Stored in the display, so it's not thread-safe either.
+     */
+    static final class Viewers {
+        private long tick;
+        @Nullable
+        private World world;
+        int size;
+        Player[] players = new Player[0];
+        private double[] eyes = new double[0], directions = new double[0];
+
+        private void ensureCapacity(int capacity) {
+            if (players.length >= capacity) return;
+            players = new Player[capacity];
+            eyes = new double[capacity * 3];
+            directions = new double[capacity * 3];
+        }
+    }
+}
@@ -195,6 +195,11 @@ public class ParticleDisplay implements Cloneable {
     public List<List<Rotation>> rotations = new ArrayList<>();
     @Nullable
     private List<Quaternion> cachedFinalRotationQuaternions;
+    /**
+     * All the {@link #cachedFinalRotationQuaternions} combined into a single row-major 3x3 matrix.
+     */
+    @Nullable
+    private double[] cachedRotationMatrix;
     @Nullable
     private ParticleData data;
     @Nullable
@@ -205,6 +210,106 @@ public class ParticleDisplay implements Cloneable {
     private Function<Double, Double> onAdvance;
     @Nullable
     private Set<Player> players;
+    @Nullable
+    private ParticleBudget budget;
+    @Nullable
+    private ParticleCulling culling;
+    @Nullable
+    private ParticleBatch batch;
+    /**
+     * The last point spawned with {@link #spawnLocal(double, double, double)}.
+     * Only used if {@link #lastLocation} is null.
+     */
+    @Nullable
+    private World lastWorld;
+    private double lastX, lastY, lastZ;
+    /**
+     * The offset values and the data object resolved from {@link #data} for {@link #resolvedParticle}
+     * and {@link #resolvedExtra}, so they're not created again for each point.
+     */
+    @Nullable
+    private ParticleData resolvedData;
+    @Nullable
+    private XParticle resolvedParticle;
+    private double resolvedExtra;
+    @Nullable
+    private Vector resolvedOffsetData;
+    @Nullable
+    private Object resolvedDataObject;
+    /**
+     * Used by {@link ParticleBudget} to skip points evenly.
+     */
+    double detailProgress;
+    /**
+     * Used by {@link ParticleCulling} to skip points for distant players.
+     */
+    private long pointIndex;
+    @Nullable
+    ParticleCulling.Viewers viewers;
+
+    /**
+     * @return the budget that limits the particles of this display, or the global budget if it doesn't have one.
+     * @since 12.0.0
+     */
+    @Nullable
+    public ParticleBudget getBudget() {
+        return budget == null ? ParticleBudget.getGlobal() : budget;
+    }
+
+    /**
+     * Limits the particles of this display with a different budget than {@link ParticleBudget#getGlobal()}.
+     *
+     * @since 12.0.0
+     */
+    @Nonnull
+    public ParticleDisplay withBudget(@Nullable ParticleBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * @return the culling that decides which players see the particles of this display,
+     * or the global culling if it doesn't have one.
+     * @since 12.0.0
+     */
+    @Nullable
+    public ParticleCulling getCulling() {
+        return culling == null ? ParticleCulling.getGlobal() : culling;
+    }
+
+    /**
+     * Decides which players see the particles of this display with a different culling than {@link ParticleCulling#getGlobal()}.
+     *
+     * @since 12.0.0
+     */
+    @Nonnull
+    public ParticleDisplay withCulling(@Nullable ParticleCulling culling) {
+        this.culling = culling;
+        return this;
+    }
+
+    /**
+     * @return the batch that collects the particles of this display instead of spawning them, if any.
+     * @since 12.0.0
+     */
+    @Nullable
+    public ParticleBatch getBatch() {
+        return batch;
+    }
+
+    /**
+     * Collects the particles of this display in the batch instead of spawning them right away.
+     * The particles are only sent when the batch is {@link ParticleBatch#flush() flushed}.
+     * Clones of this display collect their particles in the same batch, since most shapes use clones for their parts.
+     *
+     * @param batch the batch to collect the particles in, or null to spawn them normally again.
+     * @since 12.0.0
+     */
+    @Nonnull
+    public ParticleDisplay withBatch(@Nullable ParticleBatch batch) {
+        this.batch = batch;
+        return this;
+    }
 
     /**
      * Builds a simple ParticleDisplay object with cross-version
@@ -1212,6 +1317,9 @@ public class ParticleDisplay implements Cloneable {
             display.rotations = new ArrayList<>(this.rotations);
         }
         display.data = data;
+        display.budget = budget;
+        display.culling = culling;
+        display.batch = batch;
         return display;
     }
 
@@ -1289,7 +1397,7 @@ public class ParticleDisplay implements Cloneable {
     @Nonnull
     public List<Quaternion> getRotation(boolean forceUpdate) {
         if (this.rotations.isEmpty()) return new ArrayList<>();
-        if (forceUpdate) cachedFinalRotationQuaternions = null;
+        if (forceUpdate) invalidateRotation();
         if (cachedFinalRotationQuaternions == null) {
             this.cachedFinalRotationQuaternions = new ArrayList<>();
 
@@ -1307,6 +1415,102 @@ public class ParticleDisplay implements Cloneable {
         return cachedFinalRotationQuaternions;
     }
 
+    /**
+     * Gets all the rotations of this display combined into a single matrix.
+     *
+     * @return a row-major 3x3 matrix. The identity matrix if there are no rotations.
+     * @see #rotatePoints(double[])
+     * @since 12.0.0
+     */
+    @Nonnull
+    public double[] getRotationMatrix() {
+        double[] matrix = rotationMatrix();
+        return matrix == null ? new double[]{1, 0, 0, 0, 1, 0, 0, 0, 1} : matrix.clone();
+    }
+
+    /**
+     * Rotates all the given points with the rotations of this display.
+     *
+     * @param points packed xyz values of the local points. Changed directly.
+     * @since 12.0.0
+     */
+    public void rotatePoints(@Nonnull double[] points) {
+        rotatePoints(points, 0, points.length);
+    }
+
+    /**
+     * Rotates a part of the given points with the rotations of this display.
+     *
+     * @param points packed xyz values of the local points. Changed directly.
+     * @param offset the index of the x value of the first point.
+     * @param length the amount of values to rotate. Must be a multiple of 3.
+     * @see #rotatePoints(double[])
+     * @since 12.0.0
+     */
+    public void rotatePoints(@Nonnull double[] points, int offset, int length) {
+        if (length % 3 != 0) throw new IllegalArgumentException("Points length must be a multiple of 3: " + length);
+        if (offset < 0 || offset + length > points.length)
+            throw new IndexOutOfBoundsException("Offset " + offset + " and length " + length + " are out of bounds for " + points.length);
+        double[] m = rotationMatrix();
+        if (m == null) return;
+
+        double m00 = m[0], m01 = m[1], m02 = m[2];
+        double m10 = m[3], m11 = m[4], m12 = m[5];
+        double m20 = m[6], m21 = m[7], m22 = m[8];
+        for (int i = offset, end = offset + length; i < end; i += 3) {
+            double x = points[i], y = points[i + 1], z = points[i + 2];
+            points[i] = m00 * x + m01 * y + m02 * z;
+            points[i + 1] = m10 * x + m11 * y + m12 * z;
+            points[i + 2] = m20 * x + m21 * y + m22 * z;
+        }
+    }
+
+    /**
+     * @return the cached rotation matrix, or null if there are no rotations.
+     */
+    @Nullable
+    private double[] rotationMatrix() {
+        if (rotations.isEmpty()) return null;
+        double[] matrix = cachedRotationMatrix;
+        if (matrix == null) {
+            // The groups are applied in order, so the matrix of each group is multiplied from the left.
+            // Quaternion.rotate() multiplies in the reverse order of the Hamilton product,
+            // which is the same as rotating with the transposed matrix.
+            matrix = new double[]{1, 0, 0, 0, 1, 0, 0, 0, 1};
+            for (Quaternion grouped : getRotation(false)) {
+                matrix = multiply(transpose(grouped.toMatrix()), matrix);
+            }
+            cachedRotationMatrix = matrix;
+        }
+        return matrix;
+    }
+
+    private static double[] multiply(double[] a, double[] b) {
+        double[] result = new double[9];
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                result[row * 3 + column] =
+                        a[row * 3] * b[column] +
+                                a[row * 3 + 1] * b[3 + column] +
+                                a[row * 3 + 2] * b[6 + column];
+            }
+        }
+        return result;
+    }
+
+    private static double[] transpose(double[] m) {
+        return new double[]{
+                m[0], m[3], m[6],
+                m[1], m[4], m[7],
+                m[2], m[5], m[8]
+        };
+    }
+
+    private void invalidateRotation() {
+        cachedFinalRotationQuaternions = null;
+        cachedRotationMatrix = null;
+    }
+
     /**
      * Rotates the particle position based on this XYZ vector without overriding previous rotations.
      * The xyz values must be <b>radians</b> which represent the angles
@@ -1334,7 +1538,7 @@ public class ParticleDisplay implements Cloneable {
             List<Rotation> finalRots = Arrays.stream(rotations).filter(x -> x.angle != 0).collect(Collectors.toList());
             if (!finalRots.isEmpty()) {
                 this.rotations.add(finalRots);
-                if (this.cachedFinalRotationQuaternions != null) this.cachedFinalRotationQuaternions.clear();
+                invalidateRotation();
             }
         }
 
@@ -1348,7 +1552,7 @@ public class ParticleDisplay implements Cloneable {
         Objects.requireNonNull(rotation, "Null rotation");
         if (rotation.angle != 0) {
             this.rotations.add(Collections.singletonList(rotation));
-            if (this.cachedFinalRotationQuaternions != null) this.cachedFinalRotationQuaternions.clear();
+            invalidateRotation();
         }
 
         return this;
@@ -1360,7 +1564,14 @@ public class ParticleDisplay implements Cloneable {
      */
     @Nullable
     public Location getLastLocation() {
-        return lastLocation == null ? getLocation() : lastLocation;
+        if (lastLocation != null) return lastLocation;
+        if (lastWorld != null) {
+            Location location = getLocation();
+            float yaw = location == null ? 0 : location.getYaw();
+            float pitch = location == null ? 0 : location.getPitch();
+            return new Location(lastWorld, lastX, lastY, lastZ, yaw, pitch);
+        }
+        return getLocation();
     }
 
     /**
@@ -1372,29 +1583,36 @@ public class ParticleDisplay implements Cloneable {
      */
     @Nullable
     public Location finalizeLocation(@Nullable Vector local) {
-        CalculationContext preContext = new CalculationContext(location, local);
-
-        if (this.preCalculation != null) this.preCalculation.accept(preContext);
-        if (!preContext.shouldSpawn) return null;
+        Location location = this.location;
+        if (this.preCalculation != null) {
+            CalculationContext preContext = new CalculationContext(location, local);
+            this.preCalculation.accept(preContext);
+            if (!preContext.shouldSpawn) return null;
+            location = preContext.location;
+            local = preContext.local;
+        }
 
-        Location location = preContext.location;
         if (location == null) throw new IllegalStateException("Attempting to spawn particle when no location is set");
         // Exception check after preCalculation to account for dynamic location callers from withEntity()
 
-        local = preContext.local;
-        if (local != null && !rotations.isEmpty()) {
-            List<Quaternion> rotations = getRotation(false);
-            for (Quaternion grouped : rotations) {
-                local = Quaternion.rotate(local, grouped);
-            }
+        double[] m = local == null ? null : rotationMatrix();
+        if (m != null) {
+            double x = local.getX(), y = local.getY(), z = local.getZ();
+            local = new Vector(
+                    m[0] * x + m[1] * y + m[2] * z,
+                    m[3] * x + m[4] * y + m[5] * z,
+                    m[6] * x + m[7] * y + m[8] * z
+            );
         }
 
         location = cloneLocation(location);
         if (local != null) location.add(local);
 
-        CalculationContext postContext = new CalculationContext(location, local);
-        if (this.postCalculation != null) this.postCalculation.accept(postContext);
-        if (!postContext.shouldSpawn) return null;
+        if (this.postCalculation != null) {
+            CalculationContext postContext = new CalculationContext(location, local);
+            this.postCalculation.accept(postContext);
+            if (!postContext.shouldSpawn) return null;
+        }
 
         return location;
     }
@@ -1546,16 +1764,84 @@ public class ParticleDisplay implements Cloneable {
      * Adds xyz to the cloned location before spawning particle.
      *
      * @return the location the particle was spawned at.
+     * @see #spawnLocal(double, double, double)
      * @since 1.0.0
      */
     @Nullable
     public Location spawn(double x, double y, double z) {
-        return spawn(finalizeLocation(new Vector(x, y, z)));
+        if (preCalculation != null || postCalculation != null) return spawn(finalizeLocation(new Vector(x, y, z)));
+        spawnLocal(x, y, z);
+        return getLastLocation();
+    }
+
+    /**
+     * Same as {@link #spawn(double, double, double)}, but it doesn't return the location.
+     * If no {@link #preCalculation(Consumer) pre} or {@link #postCalculation(Consumer) post} calculation
+     * is set, the point is rotated and spawned without creating any objects, so this should
+     * be used to spawn a lot of points.
+     * <p>
+     * The {@link ParticleData} of this display is only converted to particle data again when
+     * the data, the particle or the {@link #extra} changes.
+     *
+     * @param x the local x to add to the location.
+     * @param y the local y to add to the location.
+     * @param z the local z to add to the location.
+     * @since 12.0.0
+     */
+    public void spawnLocal(double x, double y, double z) {
+        if (preCalculation != null || postCalculation != null) {
+            spawn(finalizeLocation(new Vector(x, y, z)));
+            return;
+        }
+
+        Location location = this.location;
+        if (location == null) throw new IllegalStateException("Attempting to spawn particle when no location is set");
+
+        double[] m = rotationMatrix();
+        if (m != null) {
+            double localX = x, localY = y, localZ = z;
+            x = m[0] * localX + m[1] * localY + m[2] * localZ;
+            y = m[3] * localX + m[4] * localY + m[5] * localZ;
+            z = m[6] * localX + m[7] * localY + m[8] * localZ;
+        }
+
+        spawnRotatedLocal(x, y, z);
+    }
+
+    /**
+     * @return true if a pre or post calculation is set.
+     */
+    boolean hasCalculations() {
+        return preCalculation != null || postCalculation != null;
+    }
+
+    /**
+     * Same as {@link #spawnLocal(double, double, double)} for points that are already rotated
+     * with {@link #rotatePoints(double[], int, int)}. Only used when there are no {@link #hasCalculations() calculations}.
+     */
+    void spawnRotatedLocal(double x, double y, double z) {
+        Location location = this.location;
+        if (location == null) throw new IllegalStateException("Attempting to spawn particle when no location is set");
+
+        World world = location.getWorld();
+        x += location.getX();
+        y += location.getY();
+        z += location.getZ();
+
+        lastLocation = null;
+        lastWorld = world;
+        lastX = x;
+        lastY = y;
+        lastZ = z;
+        spawnParticle(world, x, y, z);
     }
 
     /**
      * Displays the particle in the specified location.
      * This method does not support rotations if used directly.
+     * <p>
+     * The particle is not displayed if the {@link #getBudget() budget} doesn't allow it,
+     * but the location is still returned.
      *
      * @param loc the location to display the particle at.
      * @return the same location that was passed.
@@ -1566,35 +1852,60 @@ public class ParticleDisplay implements Cloneable {
     public Location spawn(Location loc) {
         if (loc == null) return null;
         lastLocation = loc;
+        spawnParticle(loc.getWorld(), loc.getX(), loc.getY(), loc.getZ());
+        return loc;
+    }
 
+    private void spawnParticle(World world, double x, double y, double z) {
         Particle particle = this.particle.get();
-        Objects.requireNonNull(particle, () -> "Cannot spawn unsupported particle: " + particle);
+        if (particle == null) throw new NullPointerException("Cannot spawn unsupported particle: " + this.particle);
 
         // Compatibility for previous versions of ParticleDisplay where
         // count = 0 was required for certain particle data, e.g. directional particles.
         if (count == 0) count = 1;
 
+        ParticleBudget budget = getBudget();
+        if (budget != null && !budget.tryAcquire(this, count)) return;
+
         Object data = null;
         if (this.data != null) {
-            this.data = this.data.transform(this);
-            Vector offsetData = this.data.offsetValues(this);
-            if (offsetData != null) {
-                spawnWithDataInOffset(particle, loc, offsetData, null);
-                return loc;
+            resolveData(particle);
+            if (resolvedOffsetData != null) {
+                spawnWithDataInOffset(particle, world, x, y, z, resolvedOffsetData, null);
+                return;
             }
-            data = this.data.data(this);
-            // Checks without data or block crack, block dust, falling dust, item crack or if data isn't right type
-            if (!particle.getDataType().isInstance(data)) data = null;
+            data = resolvedDataObject;
         }
 
         if (particleDirection != null) {
-            spawnWithDataInOffset(particle, loc, particleDirection, data);
-            return loc;
+            spawnWithDataInOffset(particle, world, x, y, z, particleDirection, data);
+            return;
         }
 
         // Nothing weird, just spawn the particles normally.
-        spawnRaw(particle, loc, count, offset, data);
-        return loc;
+        spawnRaw(particle, world, x, y, z, count, offset.getX(), offset.getY(), offset.getZ(), data);
+    }
+
+    /**
+     * Converts the {@link #data} to the offset values or the data object of the particle,
+     * only if the data, the particle or the extra changed since the last time.
+     */
+    private void resolveData(Particle particle) {
+        ParticleData data = this.data.transform(this);
+        this.data = data;
+        if (data == resolvedData && this.particle == resolvedParticle && extra == resolvedExtra) return;
+
+        resolvedData = data;
+        resolvedParticle = this.particle;
+        resolvedExtra = extra;
+        resolvedOffsetData = data.offsetValues(this);
+        if (resolvedOffsetData != null) {
+            resolvedDataObject = null;
+        } else {
+            Object dataObject = data.data(this);
+            // Checks without data or block crack, block dust, falling dust, item crack or if data isn't right type
+            resolvedDataObject = particle.getDataType().isInstance(dataObject) ? dataObject : null;
+        }
     }
 
     /**
@@ -1604,11 +1915,11 @@ public class ParticleDisplay implements Cloneable {
      *
      * @param offsetData the data that needs to go in the offset fields.
      */
-    private void spawnWithDataInOffset(Particle particle, Location loc, Vector offsetData, Object data) {
+    private void spawnWithDataInOffset(Particle particle, World world, double x, double y, double z, Vector offsetData, Object data) {
         // If there is no offset and we only want a single particle, we don't actually need to do anything special.
         // Otherwise, we'll at least need to use a loop.
         if (isZero(offset) && count < 2) {
-            spawnRaw(particle, loc, 0, offsetData, data);
+            spawnRaw(particle, world, x, y, z, 0, offsetData.getX(), offsetData.getY(), offsetData.getZ(), data);
             return;
         }
         // Particles with a specific direction must be flagged with count = 0,
@@ -1624,27 +1935,53 @@ public class ParticleDisplay implements Cloneable {
             double dx = offsetx == 0 ? 0 : r.nextGaussian() * 4 * offsetx;
             double dy = offsety == 0 ? 0 : r.nextGaussian() * 4 * offsety;
             double dz = offsetz == 0 ? 0 : r.nextGaussian() * 4 * offsetz;
-            Location offsetLoc = cloneLocation(loc).add(dx, dy, dz);
-            spawnRaw(particle, offsetLoc, 0, offsetData, data);
+            spawnRaw(particle, world, x + dx, y + dy, z + dz, 0, offsetData.getX(), offsetData.getY(), offsetData.getZ(), data);
         }
     }
 
     /**
-     * Calls the appropriate spawnParticle method with the parameters given.
+     * Calls the appropriate spawnParticle method with the parameters given,
+     * or adds the particle to the {@link #batch} if there is one.
      */
-    private void spawnRaw(Particle particle, Location loc, int count, Vector offset, Object data) {
-        double dx = offset.getX();
-        double dy = offset.getY();
-        double dz = offset.getZ();
+    private void spawnRaw(Particle particle, World world, double x, double y, double z,
+                          int count, double dx, double dy, double dz, Object data) {
         // The "extra" field has no effect on dust particles in some versions,
         // but in others it causes the colors to not display when set to 0.
         double extra = (this.particle == XParticle.DUST) ? 1 : this.extra;
-        if (players == null)
-            if (ISFLAT)
-                loc.getWorld().spawnParticle(particle, loc, count, dx, dy, dz, extra, data, force);
-            else loc.getWorld().spawnParticle(particle, loc, count, dx, dy, dz, extra, data);
-        else for (Player player : players)
-            player.spawnParticle(particle, loc, count, dx, dy, dz, extra, data);
+        ParticleCulling culling = getCulling();
+        ParticleBatch batch = this.batch;
+        if (players == null && culling == null) {
+            if (batch != null)
+                batch.add(world, particle, x, y, z, count, dx, dy, dz, extra, data, ISFLAT && force);
+            else if (ISFLAT)
+                world.spawnParticle(particle, x, y, z, count, dx, dy, dz, extra, data, force);
+            else world.spawnParticle(particle, x, y, z, count, dx, dy, dz, extra, data);
+            return;
+        }
+
+        ParticleBudget budget = getBudget();
+        // A count of 0 is still a single directional particle.
+        int amount = Math.max(1, count);
+        if (culling == null) {
+            for (Player player : players) {
+                if (budget != null && !budget.tryAcquire(player, amount)) continue;
+                if (batch != null) batch.add(player, particle, x, y, z, count, dx, dy, dz, extra, data);
+                else player.spawnParticle(particle, x, y, z, count, dx, dy, dz, extra, data);
+            }
+            return;
+        }
+
+        long point = pointIndex++;
+        ParticleCulling.Viewers viewers = culling.getViewers(this, world);
+        for (int i = 0; i < viewers.size; i++) {
+            int stride = culling.getStride(viewers, i, x, y, z);
+            if (stride == 0 || point % stride != 0) continue;
+
+            Player player = viewers.players[i];
+            if (budget != null && !budget.tryAcquire(player, amount)) continue;
+            if (batch != null) batch.add(player, particle, x, y, z, count, dx, dy, dz, extra, data);
+            else player.spawnParticle(particle, x, y, z, count, dx, dy, dz, extra, data);
+        }
     }
 
     /**
@@ -1800,6 +2137,23 @@ public class ParticleDisplay implements Cloneable {
             return new Quaternion(n0, n1, n2, n3);
         }
 
+        /**
+         * @return the row-major 3x3 rotation matrix of this quaternion.
+         * @since 12.0.0
+         */
+        public double[] toMatrix() {
+            // Same as mul(Vector), but also works for quaternions that are not normalized.
+            double s = 2 / (w * w + x * x + y * y + z * z);
+            double xx = x * x * s, yy = y * y * s, zz = z * z * s;
+            double xy = x * y * s, xz = x * z * s, yz = y * z * s;
+            double wx = w * x * s, wy = w * y * s, wz = w * z * s;
+            return new double[]{
+                    1 - (yy + zz), xy - wz, xz + wy,
+                    xy + wz, 1 - (xx + zz), yz - wx,
+                    xz - wy, yz + wx, 1 - (xx + yy)
+            };
+        }
+
         public Vector mul(Vector point) {
             // https://github.com/Unity-Technologies/UnityCsReference/blob/7c95a72366b5ed9b6d9e804de8b5e869c962f5a9/Runtime/Export/Math/Quaternion.cs#L96-L117
             double x = this.x * 2;
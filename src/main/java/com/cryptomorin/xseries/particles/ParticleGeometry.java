@@ -0,0 +1,259 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2024 Crypto Morin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cryptomorin.xseries.particles;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.bukkit.util.Vector;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * The local points of a shape, relative to the location of the display that spawns them.
+ * For the same parameters, the points of most shapes never change. Only the location and the rotations of the
+ * display do, so the points can be calculated once and {@link #spawn(ParticleDisplay) spawned} as many times as needed.
+ * <pre>{@code
+ * ParticleGeometry geometry = ParticleGeometry.cached("my_shape", builder -> {
+ *     for (double theta = 0; theta <= Particles.PII; theta += Math.PI / 30) {
+ *         builder.add(Math.cos(theta), 0, Math.sin(theta));
+ *     }
+ * }, 30);
+ * geometry.spawn(display);
+ * }</pre>
+ * The points are stored as packed xyz values. Shapes with their own directional pattern
+ * also store the particle direction of each point.
+ *
+ * @since 12.0.0
+ */
+public final class ParticleGeometry {
+    /**
+     * Weighed by the amount of points, so a few huge shapes can't take as much memory as they want.
+     *
+     * @see #cached(String, Consumer, double...)
+     */
+    private static final Cache<Key, ParticleGeometry> CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(100_000).weigher((Key key, ParticleGeometry geometry) -> geometry.size)
+            .recordStats().build();
+    /**
+     * Used to rotate all the points at once without changing the cached points.
+     */
+    private static final ThreadLocal<double[]> ROTATED = ThreadLocal.withInitial(() -> new double[0]);
+
+    private final double[] points;
+    @Nullable
+    private final double[] directions;
+    private final int size;
+
+    private ParticleGeometry(double[] points, @Nullable double[] directions, int size) {
+        this.points = points;
+        this.directions = directions;
+        this.size = size;
+    }
+
+    /**
+     * Gets the cached points of a shape, or generates them if they're not cached.
+     *
+     * @param shape      the name of the shape. Must be unique for each shape.
+     * @param generator  adds the points of the shape.
+     * @param parameters all the parameters that change the points of the shape.
+     */
+    @Nonnull
+    public static ParticleGeometry cached(@Nonnull String shape, @Nonnull Consumer<Builder> generator, double... parameters) {
+        Key key = new Key(shape, parameters);
+        ParticleGeometry geometry = CACHE.getIfPresent(key);
+        if (geometry == null) {
+            geometry = generate(generator);
+            CACHE.put(key, geometry);
+        }
+        return geometry;
+    }
+
+    /**
+     * Generates the points of a shape without caching them.
+     * Used for shapes that are spawned with different parameters each time, which would only fill the cache.
+     *
+     * @param generator adds the points of the shape.
+     */
+    @Nonnull
+    public static ParticleGeometry generate(@Nonnull Consumer<Builder> generator) {
+        Builder builder = new Builder();
+        generator.accept(builder);
+        return builder.build();
+    }
+
+    /**
+     * @see #cached(String, Consumer, double...)
+     */
+    @Nonnull
+    public static CacheStats getCacheStats() {
+        return CACHE.stats();
+    }
+
+    /**
+     * Spawns all the points with the display.
+     * If the display is {@link ParticleDisplay#isDirectional() directional} and this shape
+     * has its own directions, the particle direction is changed for each point.
+     */
+    public void spawn(@Nonnull ParticleDisplay display) {
+        boolean directional = directions != null && display.isDirectional();
+        Vector direction = null;
+        if (directional) {
+            // The same vector is changed for each point instead of making a new one.
+            direction = new Vector();
+            display.particleDirection(direction);
+        }
+
+        // Calculations might change the points, so each point has to go through them separately.
+        boolean rotated = !display.hasCalculations();
+        double[] points = this.points;
+        if (rotated) {
+            int length = size * 3;
+            double[] buffer = ROTATED.get();
+            if (buffer.length < length) ROTATED.set(buffer = new double[length]);
+            System.arraycopy(points, 0, buffer, 0, length);
+            display.rotatePoints(buffer, 0, length);
+            points = buffer;
+        }
+
+        for (int i = 0; i < size; i++) {
+            int xyz = i * 3;
+            if (directional) {
+                double y = directions[xyz + 1];
+                direction.setX(directions[xyz]);
+                direction.setY(Double.isNaN(y) ? display.getOffset().getY() : y);
+                direction.setZ(directions[xyz + 2]);
+            }
+            if (rotated) display.spawnRotatedLocal(points[xyz], points[xyz + 1], points[xyz + 2]);
+            else display.spawnLocal(points[xyz], points[xyz + 1], points[xyz + 2]);
+        }
+    }
+
+    /**
+     * @return the amount of points in this shape.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the points have their own particle directions.
+     */
+    public boolean hasDirections() {
+        return directions != null;
+    }
+
+    /**
+     * @return a copy of the packed xyz values of all the points.
+     */
+    @Nonnull
+    public double[] getPoints() {
+        return Arrays.copyOf(points, size * 3);
+    }
+
+    @Override
+    public String toString() {
+        return "ParticleGeometry{size=" + size + ", directions=" + (directions != null) + '}';
+    }
+
+    public static final class Builder {
+        private double[] points = new double[3 * 32];
+        @Nullable
+        private double[] directions;
+        private int size;
+
+        private Builder() {}
+
+        @Nonnull
+        public Builder add(double x, double y, double z) {
+            ensureCapacity();
+            int xyz = size * 3;
+            points[xyz] = x;
+            points[xyz + 1] = y;
+            points[xyz + 2] = z;
+            size++;
+            return this;
+        }
+
+        /**
+         * Adds a point with its own particle direction.
+         * If a direction value is {@link Double#NaN}, the {@link ParticleDisplay#getOffset() offset} of the display
+         * is used for that axis instead.
+         */
+        @Nonnull
+        public Builder add(double x, double y, double z, double directionX, double directionY, double directionZ) {
+            if (directions == null) directions = new double[points.length];
+            int xyz = size * 3;
+            add(x, y, z);
+            directions[xyz] = directionX;
+            directions[xyz + 1] = directionY;
+            directions[xyz + 2] = directionZ;
+            return this;
+        }
+
+        private void ensureCapacity() {
+            if ((size + 1) * 3 <= points.length) return;
+            int capacity = points.length * 2;
+            points = Arrays.copyOf(points, capacity);
+            if (directions != null) directions = Arrays.copyOf(directions, capacity);
+        }
+
+        @Nonnull
+        private ParticleGeometry build() {
+            int length = size * 3;
+            return new ParticleGeometry(
+                    points.length == length ? points : Arrays.copyOf(points, length),
+                    directions == null || directions.length == length ? directions : Arrays.copyOf(directions, length),
+                    size
+            );
+        }
+    }
+
+    private static final class Key {
+        private final String shape;
+        private final double[] parameters;
+        private final int hashCode;
+
+        private Key(String shape, double[] parameters) {
+            this.shape = Objects.requireNonNull(shape, "Shape name cannot be null");
+            this.parameters = parameters;
+            this.hashCode = shape.hashCode() * 31 + Arrays.hashCode(parameters);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key key = (Key) obj;
+            return hashCode == key.hashCode && shape.equals(key.shape) && Arrays.equals(parameters, key.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
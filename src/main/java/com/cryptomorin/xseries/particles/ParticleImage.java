@@ -0,0 +1,281 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2024 Crypto Morin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cryptomorin.xseries.particles;
+
+import org.bukkit.Color;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * The pixels of an image rendered as colored dust particles.
+ * This is the packed version of {@link Particles#renderImage(BufferedImage, int, int, double)}.
+ * Instead of an object for each pixel, the positions and the colors of all the pixels are stored in
+ * arrays, and each distinct color only has a single {@link Particle.DustOptions}.
+ * <pre>{@code
+ * ParticleImage image = ParticleImage.render(bufferedImage, 0.2);
+ * image.display(location, 1, 0, 0.8f);
+ * }</pre>
+ * An image can be displayed as many times as needed (e.g. every tick) and from multiple threads.
+ * The positions and the dust options are reused, and on servers that support {@link ParticleBatch}
+ * each thread reuses the same batch, so the only objects created for each pixel are the particle
+ * packets themselves.
+ *
+ * @since 12.0.0
+ */
+public final class ParticleImage {
+    /**
+     * The local position of each pixel. The pixels are ordered by rows.
+     */
+    private final float[] x, y;
+    /**
+     * The RGB color of each pixel.
+     */
+    private final int[] rgb;
+    /**
+     * The index of the color of each pixel in {@link #palette}
+     */
+    private final int[] colors;
+    /**
+     * All the distinct colors in this image, sorted.
+     */
+    private final int[] palette;
+    /**
+     * The dust options of each color in the {@link #palette} for the last size that the image was displayed with.
+     */
+    @Nullable
+    private volatile Dust dust;
+    /**
+     * Each thread that displays this image reuses the same batch, so its arrays are only created once.
+     */
+    private final ThreadLocal<ParticleBatch> batches;
+
+    private ParticleImage(float[] x, float[] y, int[] rgb, int[] colors, int[] palette) {
+        this.x = x;
+        this.y = y;
+        this.rgb = rgb;
+        this.colors = colors;
+        this.palette = palette;
+        this.batches = ThreadLocal.withInitial(() -> new ParticleBatch(Math.max(1, x.length)));
+    }
+
+    /**
+     * Renders every visible pixel of the image. Each row of the image is rendered in parallel.
+     *
+     * @param image   the image to render.
+     * @param compact the distance between each pixel. Should be lower than 0.5 and higher than 0.1 The recommended value is 0.2
+     */
+    @Nonnull
+    public static ParticleImage render(@Nonnull BufferedImage image, double compact) {
+        Objects.requireNonNull(image, "Cannot render null image");
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double centerX = width / 2D;
+        double centerY = height / 2D;
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+        // The visible pixels of each row, so the rows know where to write their pixels.
+        int[] rowStart = new int[height + 1];
+        IntStream.range(0, height).parallel().forEach(row -> {
+            int visible = 0;
+            for (int column = 0, i = row * width; column < width; column++, i++) {
+                if (isVisible(pixels[i])) visible++;
+            }
+            rowStart[row + 1] = visible;
+        });
+        for (int row = 0; row < height; row++) rowStart[row + 1] += rowStart[row];
+
+        int size = rowStart[height];
+        float[] x = new float[size], y = new float[size];
+        int[] rgb = new int[size];
+        IntStream.range(0, height).parallel().forEach(row -> {
+            int index = rowStart[row];
+            float pixelY = (float) ((row - centerY) * compact);
+            for (int column = 0, i = row * width; column < width; column++, i++) {
+                int pixel = pixels[i];
+                if (!isVisible(pixel)) continue;
+
+                x[index] = (float) ((column - centerX) * compact);
+                y[index] = pixelY;
+                rgb[index] = pixel & 0xFFFFFF;
+                index++;
+            }
+        });
+
+        int[] palette = distinct(rgb);
+        int[] colors = new int[size];
+        IntStream.range(0, height).parallel().forEach(row -> {
+            for (int i = rowStart[row]; i < rowStart[row + 1]; i++) {
+                colors[i] = Arrays.binarySearch(palette, rgb[i]);
+            }
+        });
+
+        return new ParticleImage(x, y, rgb, colors, palette);
+    }
+
+    private static boolean isVisible(int pixel) {
+        // Same transparency check as Particles#renderImage
+        return (pixel >> 24) != 0x0;
+    }
+
+    private static int[] distinct(int[] rgb) {
+        int[] sorted = rgb.clone();
+        Arrays.parallelSort(sorted);
+
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[size - 1]) sorted[size++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * Displays the image once.
+     *
+     * @param location the location to display the image at. The {@link Location#getYaw()} determines the image's rotation.
+     * @param quality  the quality of the image is exactly the number of particles display for each pixel. Recommended value is 1
+     * @param speed    the speed is exactly the same value as the speed of particles. Recommended amount is 0
+     * @param size     the size of the particle. Recommended amount is 0.8
+     * @see Particles#displayRenderedImage(java.util.Map, Location, int, int, float)
+     */
+    public void display(@Nonnull Location location, int quality, int speed, float size) {
+        World world = location.getWorld();
+        Particle particle = XParticle.DUST.get();
+        Particle.DustOptions[] dust = getDust(size);
+
+        // Which local axis of the pixel goes to each axis of the world.
+        float xFromX = 0, xFromY = 0, yFromX = 0, yFromY = 0, zFromX = 0, zFromY = 0;
+        BlockFace facing = Particles.getImageFacing(location);
+        switch (facing) {
+            case NORTH:
+                xFromX = 1;
+                yFromY = 1;
+                break;
+            case EAST:
+                yFromX = 1;
+                zFromY = 1;
+                break;
+            case SOUTH:
+                xFromY = 1;
+                yFromX = 1;
+                break;
+            case WEST:
+                yFromY = 1;
+                zFromX = 1;
+                break;
+            default:
+                throw new AssertionError("Invalid facing: " + facing);
+        }
+
+        double originX = location.getX(), originY = location.getY(), originZ = location.getZ();
+        float[] x = this.x, y = this.y;
+        int[] colors = this.colors;
+
+        // All the pixels are sent at once.
+        ParticleBatch batch = ParticleBatch.isSupported() ? batches.get() : null;
+        try {
+            for (int i = 0; i < x.length; i++) {
+                float pixelX = x[i], pixelY = y[i];
+                double worldX = originX - (pixelX * xFromX + pixelY * xFromY);
+                double worldY = originY - (pixelX * yFromX + pixelY * yFromY);
+                double worldZ = originZ - (pixelX * zFromX + pixelY * zFromY);
+
+                Particle.DustOptions data = dust[colors[i]];
+                if (batch != null) batch.add(world, particle, worldX, worldY, worldZ, quality, 0, 0, 0, speed, data, false);
+                else world.spawnParticle(particle, worldX, worldY, worldZ, quality, 0, 0, 0, speed, data);
+            }
+        } finally {
+            if (batch != null) batch.flush();
+        }
+    }
+
+    private Particle.DustOptions[] getDust(float size) {
+        Dust dust = this.dust;
+        if (dust != null && dust.size == size) return dust.options;
+
+        Particle.DustOptions[] options = new Particle.DustOptions[palette.length];
+        for (int i = 0; i < palette.length; i++) {
+            options[i] = new Particle.DustOptions(Color.fromRGB(palette[i]), size);
+        }
+        this.dust = new Dust(size, options);
+        return options;
+    }
+
+    /**
+     * @return the amount of visible pixels.
+     */
+    public int size() {
+        return x.length;
+    }
+
+    /**
+     * @return the amount of distinct colors.
+     */
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    /**
+     * @param pixel the index of the pixel, between 0 and {@link #size()}
+     */
+    public float getX(int pixel) {
+        return x[pixel];
+    }
+
+    /**
+     * @param pixel the index of the pixel, between 0 and {@link #size()}
+     */
+    public float getY(int pixel) {
+        return y[pixel];
+    }
+
+    /**
+     * @param pixel the index of the pixel, between 0 and {@link #size()}
+     * @return the RGB color of the pixel without the alpha.
+     */
+    public int getRGB(int pixel) {
+        return rgb[pixel];
+    }
+
+    @Override
+    public String toString() {
+        return "ParticleImage{size=" + x.length + ", palette=" + palette.length + '}';
+    }
+
+    private static final class Dust {
+        private final float size;
+        private final Particle.DustOptions[] options;
+
+        private Dust(float size, Particle.DustOptions[] options) {
+            this.size = size;
+            this.options = options;
+        }
+    }
+}
@@ -86,6 +86,9 @@ import java.util.function.Supplier;
  * to either use {@link CompletableFuture#runAsync(Runnable)} or
  * {@link BukkitRunnable#runTaskTimerAsynchronously(Plugin, long, long)} for
  * smoothly animated shapes.
+ * If you're running a lot of animations at once, use {@link ParticleAnimator}
+ * to run all of them from a single task.
+ * The points of simple shapes such as circles and spheres are cached with {@link ParticleGeometry}.
  * For huge animations you can use splittable tasks.
  * https://www.spigotmc.org/threads/409003/
  * By "huge", the algorithm used to generate locations is considered. You should not spawn
@@ -220,7 +223,7 @@ public final class Particles {
         double j = 0;
         for (double i = 10; i > 0; i -= radiusRate) {
             j += rateChange;
-            circle(radius + i, rate - j, display);
+            uncachedCircle(radius + i, rate - j, display);
         }
     }
 
@@ -270,6 +273,19 @@ public final class Particles {
      * @see #eye(double, double, double, double, ParticleDisplay)
      */
     public static void circle(double radius, double radius2, double extension, double rate, double limit, ParticleDisplay display) {
+        ParticleGeometry.cached("circle", builder -> circle(radius, radius2, extension, rate, limit, builder),
+                radius, radius2, extension, rate, limit).spawn(display);
+    }
+
+    /**
+     * Spawns a circle without caching its points.
+     * Used by shapes that spawn circles with a different radius or rate in each step.
+     */
+    private static void uncachedCircle(double radius, double rate, ParticleDisplay display) {
+        ParticleGeometry.generate(builder -> circle(radius, radius, 1, rate, 0, builder)).spawn(display);
+    }
+
+    private static void circle(double radius, double radius2, double extension, double rate, double limit, ParticleGeometry.Builder builder) {
         // 180 degrees = PI
         // We need a full circle, 360 so we need two pies!
         // https://www.spigotmc.org/threads/176792/
@@ -293,17 +309,14 @@ public final class Particles {
             double x = radius * Math.cos(extension * theta);
             double z = radius2 * Math.sin(extension * theta);
 
-            if (display.isDirectional()) {
-                // We're going to get the angle in these two coordinates.
-                // Then we can spread each particle in the right angle.
-                double phi = Math.atan2(z, x);
-                double directionX = Math.cos(extension * phi);
-                double directionZ = Math.sin(extension * phi);
+            // We're going to get the angle in these two coordinates.
+            // Then we can spread each particle in the right angle if the display is directional.
+            double phi = Math.atan2(z, x);
+            double directionX = Math.cos(extension * phi);
+            double directionZ = Math.sin(extension * phi);
 
-                display.particleDirection(directionX, display.getOffset().getY(), directionZ);
-            }
-
-            display.spawn(x, 0, z);
+            // NaN uses the offset of the display.
+            builder.add(x, 0, z, directionX, Double.NaN, directionZ);
         }
     }
 
@@ -418,7 +431,7 @@ public final class Particles {
             // noinspection ConstantValue
             if (i > radius) i = radius;
             dynamicRate += rate / (radius / radiusRate);
-            circle(i, dynamicRate, display);
+            uncachedCircle(i, dynamicRate, display);
         }
     }
 
@@ -635,7 +648,7 @@ public final class Particles {
             // The remainder of radiusDiv division might be not 0
             // This will happen to the last loop only.
             if (radius < 0) radius = 0;
-            circle(radius, circleRate - i, display.cloneWithLocation(0, i, 0));
+            uncachedCircle(radius, circleRate - i, display.cloneWithLocation(0, i, 0));
         }
     }
 
@@ -1224,6 +1237,10 @@ public final class Particles {
      * @since 1.0.0
      */
     public static void sphere(double radius, double rate, ParticleDisplay display) {
+        ParticleGeometry.cached("sphere", builder -> sphere(radius, rate, builder), radius, rate).spawn(display);
+    }
+
+    private static void sphere(double radius, double rate, ParticleGeometry.Builder builder) {
         // Cache
         double rateDiv = Math.PI / rate;
 
@@ -1238,19 +1255,15 @@ public final class Particles {
                 double x = Math.cos(theta) * y2;
                 double z = Math.sin(theta) * y2;
 
-                if (display.isDirectional()) {
-                    // We're going to do the same thing from spreading circle.
-                    // Since this is a 3D shape we'll need to get the y value as well.
-                    // I'm not sure if this is the right way to do it.
-                    double omega = Math.atan2(z, x);
-                    double directionX = Math.cos(omega);
-                    double directionY = Math.sin(Math.atan2(y2, y1));
-                    double directionZ = Math.sin(omega);
+                // We're going to do the same thing from spreading circle.
+                // Since this is a 3D shape we'll need to get the y value as well.
+                // I'm not sure if this is the right way to do it.
+                double omega = Math.atan2(z, x);
+                double directionX = Math.cos(omega);
+                double directionY = Math.sin(Math.atan2(y2, y1));
+                double directionZ = Math.sin(omega);
 
-                    display.particleDirection(directionX, directionY, directionZ);
-                }
-
-                display.spawn(x, y1, z);
+                builder.add(x, y1, z, directionX, directionY, directionZ);
             }
         }
     }
@@ -1303,6 +1316,10 @@ public final class Particles {
      * @since 1.0.0
      */
     public static void ring(double rate, double radius, double tubeRadius, ParticleDisplay display) {
+        ParticleGeometry.cached("ring", builder -> ring(rate, radius, tubeRadius, builder), rate, radius, tubeRadius).spawn(display);
+    }
+
+    private static void ring(double rate, double radius, double tubeRadius, ParticleGeometry.Builder builder) {
         double rateDiv = Math.PI / rate;
         double tubeDiv = Math.PI / tubeRadius;
 
@@ -1317,7 +1334,7 @@ public final class Particles {
                 double y = finalRadius * sin;
                 double z = tubeRadius * Math.sin(phi);
 
-                display.spawn(x, y, z);
+                builder.add(x, y, z);
             }
         }
     }
@@ -1397,6 +1414,11 @@ public final class Particles {
      * @since 1.0.0
      */
     public static void heart(double cut, double cutAngle, double depth, double compressHeight, double rate, ParticleDisplay display) {
+        ParticleGeometry.cached("heart", builder -> heart(cut, cutAngle, depth, compressHeight, rate, builder),
+                cut, cutAngle, depth, compressHeight, rate).spawn(display);
+    }
+
+    private static void heart(double cut, double cutAngle, double depth, double compressHeight, double rate, ParticleGeometry.Builder builder) {
         for (double theta = 0; theta <= PII; theta += Math.PI / rate) {
             double phi = theta / cut;
             double cos = Math.cos(phi);
@@ -1406,7 +1428,7 @@ public final class Particles {
             double y = omega * (sin + cos);
             double z = omega * (cos - sin);
 
-            display.spawn(0, y, z);
+            builder.add(0, y, z);
         }
     }
 
@@ -1927,12 +1949,17 @@ public final class Particles {
         // thro the z of each y and y of each x.
         // Although spawning 1D (line) and 2D (rectangle) shapes are possible
         // with this method alone, having them as separated methods is more efficient.
-        for (double x = minX; x <= maxX; x += rate) {
-            for (double y = minY; y <= maxY; y += rate) {
-                for (double z = minZ; z <= maxZ; z += rate) {
-                    display.spawn(x - minX, y - minY, z - minZ);
+        ParticleBatch batch = ParticleBatch.begin(display);
+        try {
+            for (double x = minX; x <= maxX; x += rate) {
+                for (double y = minY; y <= maxY; y += rate) {
+                    for (double z = minZ; z <= maxZ; z += rate) {
+                        display.spawn(x - minX, y - minY, z - minZ);
+                    }
                 }
             }
+        } finally {
+            if (batch != null) batch.end(display);
         }
     }
 
@@ -2028,61 +2055,66 @@ public final class Particles {
      * @since 1.0.0
      */
     public static void hypercube(Location startOrigin, Location endOrigin, double rate, double sizeRate, int cubes, ParticleDisplay display) {
-        List<Location> previousPoints = null;
-        for (int i = 0; i < cubes + 1; i++) {
-            List<Location> points = new ArrayList<>(8);
-            Location start = startOrigin.clone().subtract(i * sizeRate, i * sizeRate, i * sizeRate);
-            Location end = endOrigin.clone().add(i * sizeRate, i * sizeRate, i * sizeRate);
-
-            display.withLocation(start);
-            double maxX = Math.max(start.getX(), end.getX());
-            double minX = Math.min(start.getX(), end.getX());
-
-            double maxY = Math.max(start.getY(), end.getY());
-            double minY = Math.min(start.getY(), end.getY());
-
-            double maxZ = Math.max(start.getZ(), end.getZ());
-            double minZ = Math.min(start.getZ(), end.getZ());
-
-            // We're going to hardcode the corner points.
-            // M M M
-            points.add(new Location(start.getWorld(), maxX, maxY, maxZ));
-            // m m m
-            points.add(new Location(start.getWorld(), minX, minY, minZ));
-            // M m M
-            points.add(new Location(start.getWorld(), maxX, minY, maxZ));
-            // m M m
-            points.add(new Location(start.getWorld(), minX, maxY, minZ));
-            // m m M
-            points.add(new Location(start.getWorld(), minX, minY, maxZ));
-            // M m m
-            points.add(new Location(start.getWorld(), maxX, minY, minZ));
-            // M M m
-            points.add(new Location(start.getWorld(), maxX, maxY, minZ));
-            // m M M
-            points.add(new Location(start.getWorld(), minX, maxY, maxZ));
-
-            if (previousPoints != null) {
-                for (int p = 0; p < 8; p++) {
-                    Location current = points.get(p);
-                    Location previous = previousPoints.get(p);
-                    line(previous, current, rate, display);
+        ParticleBatch batch = ParticleBatch.begin(display);
+        try {
+            List<Location> previousPoints = null;
+            for (int i = 0; i < cubes + 1; i++) {
+                List<Location> points = new ArrayList<>(8);
+                Location start = startOrigin.clone().subtract(i * sizeRate, i * sizeRate, i * sizeRate);
+                Location end = endOrigin.clone().add(i * sizeRate, i * sizeRate, i * sizeRate);
+
+                display.withLocation(start);
+                double maxX = Math.max(start.getX(), end.getX());
+                double minX = Math.min(start.getX(), end.getX());
+
+                double maxY = Math.max(start.getY(), end.getY());
+                double minY = Math.min(start.getY(), end.getY());
+
+                double maxZ = Math.max(start.getZ(), end.getZ());
+                double minZ = Math.min(start.getZ(), end.getZ());
+
+                // We're going to hardcode the corner points.
+                // M M M
+                points.add(new Location(start.getWorld(), maxX, maxY, maxZ));
+                // m m m
+                points.add(new Location(start.getWorld(), minX, minY, minZ));
+                // M m M
+                points.add(new Location(start.getWorld(), maxX, minY, maxZ));
+                // m M m
+                points.add(new Location(start.getWorld(), minX, maxY, minZ));
+                // m m M
+                points.add(new Location(start.getWorld(), minX, minY, maxZ));
+                // M m m
+                points.add(new Location(start.getWorld(), maxX, minY, minZ));
+                // M M m
+                points.add(new Location(start.getWorld(), maxX, maxY, minZ));
+                // m M M
+                points.add(new Location(start.getWorld(), minX, maxY, maxZ));
+
+                if (previousPoints != null) {
+                    for (int p = 0; p < 8; p++) {
+                        Location current = points.get(p);
+                        Location previous = previousPoints.get(p);
+                        line(previous, current, rate, display);
+                    }
                 }
-            }
-            previousPoints = points;
-
-            // Same thing as a structured cube.
-            for (double x = minX; x <= maxX; x += rate) {
-                for (double y = minY; y <= maxY; y += rate) {
-                    for (double z = minZ; z <= maxZ; z += rate) {
-                        int components = 0;
-                        if (x == minX || x + rate > maxX) components++;
-                        if (y == minY || y + rate > maxY) components++;
-                        if (z == minZ || z + rate > maxZ) components++;
-                        if (components >= 2) display.spawn(x - minX, y - minY, z - minZ);
+                previousPoints = points;
+
+                // Same thing as a structured cube.
+                for (double x = minX; x <= maxX; x += rate) {
+                    for (double y = minY; y <= maxY; y += rate) {
+                        for (double z = minZ; z <= maxZ; z += rate) {
+                            int components = 0;
+                            if (x == minX || x + rate > maxX) components++;
+                            if (y == minY || y + rate > maxY) components++;
+                            if (z == minZ || z + rate > maxZ) components++;
+                            if (components >= 2) display.spawn(x - minX, y - minY, z - minZ);
+                        }
                     }
                 }
             }
+        } finally {
+            if (batch != null) batch.end(display);
         }
     }
 
@@ -2515,6 +2547,11 @@ public final class Particles {
      * @since 1.0.0
      */
     public static void polygon(int points, int connection, double size, double rate, double extend, ParticleDisplay display) {
+        ParticleGeometry.cached("polygon", builder -> polygon(points, connection, size, rate, extend, builder),
+                points, connection, size, rate, extend).spawn(display);
+    }
+
+    private static void polygon(int points, int connection, double size, double rate, double extend, ParticleGeometry.Builder builder) {
         for (int point = 0; point < points; point++) {
             // Generate our points in a circle shaped area.
             double angle = Math.toRadians(360D / points * point);
@@ -2540,7 +2577,7 @@ public final class Particles {
             for (double pos = 0; pos < 1 + extend; pos += rate) {
                 double x1 = x + (deltaX * pos);
                 double z1 = z + (deltaZ * pos);
-                display.spawn(x1, 0, z1);
+                builder.add(x1, 0, z1);
             }
         }
     }
@@ -2745,12 +2782,28 @@ public final class Particles {
      * @param resizedHeight the resizing height.
      * @param compact       the pixel compact of the image.
      * @return the rendered particle locations.
+     * @see #renderParticleImage(Path, int, int, double)
      * @since 1.0.0
      */
     public static CompletableFuture<Map<double[], Color>> renderImage(Path path, int resizedWidth, int resizedHeight, double compact) {
         return getScaledImage(path, resizedWidth, resizedHeight).thenCompose((image) -> renderImage(image, resizedWidth, resizedHeight, compact));
     }
 
+    /**
+     * Renders a resized image into a {@link ParticleImage}, which is a lot lighter than
+     * {@link #renderImage(Path, int, int, double)} for big images or images that are displayed often.
+     *
+     * @param path          the path of the image.
+     * @param resizedWidth  the resizing width.
+     * @param resizedHeight the resizing height.
+     * @param compact       the pixel compact of the image.
+     * @return the rendered image, or null if the image couldn't be read.
+     * @since 12.0.0
+     */
+    public static CompletableFuture<ParticleImage> renderParticleImage(Path path, int resizedWidth, int resizedHeight, double compact) {
+        return getScaledImage(path, resizedWidth, resizedHeight).thenApply(image -> image == null ? null : ParticleImage.render(image, compact));
+    }
+
     /**
      * Renders every pixel of the image and saves the location and
      * the particle colors to a map.
@@ -2760,6 +2813,7 @@ public final class Particles {
      * @param resizedHeight the new image height.
      * @param compact       particles compact value. Should be lower than 0.5 and higher than 0.1 The recommended value is 0.2
      * @return a rendered map of an image.
+     * @see ParticleImage#render(BufferedImage, double)
      * @since 1.0.0
      */
     @SuppressWarnings("unused")
@@ -2835,6 +2889,43 @@ public final class Particles {
         };
     }
 
+    /**
+     * Display a rendered image repeatedly.
+     *
+     * @param image    the rendered image.
+     * @param location the dynamic location to display the image at.
+     * @param repeat   amount of times to repeat displaying the image.
+     * @param quality  the quality of the image is exactly the number of particles display for each pixel. Recommended value is 1
+     * @param speed    the speed is exactly the same value as the speed of particles. Recommended amount is 0
+     * @param size     the size of the particle. Recommended amount is 0.8
+     * @see ParticleImage#display(Location, int, int, float)
+     * @since 12.0.0
+     */
+    public static BooleanSupplier displayRenderedImage(ParticleImage image, Callable<Location> location,
+                                                       int repeat, int quality, int speed, float size) {
+        return new BooleanSupplier() {
+            int times = repeat;
+            boolean done = false;
+
+            @Override
+            public boolean getAsBoolean() {
+                if (done) return false;
+
+                try {
+                    image.display(location.call(), quality, speed, size);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+
+                if (times-- <= 0) {
+                    done = true;
+                    return false;
+                }
+                return true;
+            }
+        };
+    }
+
     /**
      * Display a rendered image repeatedly.
      *
@@ -2873,51 +2964,62 @@ public final class Particles {
     @SuppressWarnings("ConstantConditions")
     public static void displayRenderedImage(Map<double[], Color> render, Location location, int quality, int speed, float size) {
         World world = location.getWorld();
+        BlockFace facing = getImageFacing(location);
 
-        BlockFace facing;
-        double rotation = location.getYaw(); // The rotation axis.
-        if (rotation >= 135 || rotation < -135) facing = BlockFace.NORTH;
-        else if (rotation >= -135 && rotation < -45) facing = BlockFace.EAST;
-        else if (rotation >= -45 && rotation < 45) facing = BlockFace.SOUTH;
-        else if (rotation >= 45 && rotation < 135) facing = BlockFace.WEST;
-        else throw new IllegalArgumentException("Unknown rotation yaw: " + rotation);
-
-        for (Map.Entry<double[], Color> pixel : render.entrySet()) {
-            Particle.DustOptions data = new Particle.DustOptions(pixel.getValue(), size);
-            double[] pixelLoc = pixel.getKey();
-            double x, y, z;
-
-            switch (facing) {
-                case NORTH:
-                    x = location.getX() - pixelLoc[0];
-                    y = location.getY() - pixelLoc[1];
-                    z = location.getZ();
-                    break;
-                case EAST:
-                    // East
-                    x = location.getX();
-                    y = location.getY() - pixelLoc[0];
-                    z = location.getZ() - pixelLoc[1];
-                    break;
-                case SOUTH:
-                    x = location.getX() - pixelLoc[1];
-                    y = location.getY() - pixelLoc[0];
-                    z = location.getZ();
-                    break;
-                case WEST:
-                    x = location.getX();
-                    y = location.getY() - pixelLoc[1];
-                    z = location.getZ() - pixelLoc[0];
-                    break;
-                default:
-                    throw new AssertionError("Invalid facing: " + facing);
-            }
+        // All the pixels are sent at once.
+        ParticleBatch batch = ParticleBatch.isSupported() ? new ParticleBatch() : null;
+        try {
+            for (Map.Entry<double[], Color> pixel : render.entrySet()) {
+                Particle.DustOptions data = new Particle.DustOptions(pixel.getValue(), size);
+                double[] pixelLoc = pixel.getKey();
+                double x, y, z;
+
+                switch (facing) {
+                    case NORTH:
+                        x = location.getX() - pixelLoc[0];
+                        y = location.getY() - pixelLoc[1];
+                        z = location.getZ();
+                        break;
+                    case EAST:
+                        // East
+                        x = location.getX();
+                        y = location.getY() - pixelLoc[0];
+                        z = location.getZ() - pixelLoc[1];
+                        break;
+                    case SOUTH:
+                        x = location.getX() - pixelLoc[1];
+                        y = location.getY() - pixelLoc[0];
+                        z = location.getZ();
+                        break;
+                    case WEST:
+                        x = location.getX();
+                        y = location.getY() - pixelLoc[1];
+                        z = location.getZ() - pixelLoc[0];
+                        break;
+                    default:
+                        throw new AssertionError("Invalid facing: " + facing);
+                }
 
-            Location loc = new Location(world, x, y, z);
-            world.spawnParticle(XParticle.DUST.get(), loc, quality, 0, 0, 0, speed, data);
+                if (batch != null) batch.add(world, XParticle.DUST.get(), x, y, z, quality, 0, 0, 0, speed, data, false);
+                else world.spawnParticle(XParticle.DUST.get(), new Location(world, x, y, z), quality, 0, 0, 0, speed, data);
+            }
+        } finally {
+            if (batch != null) batch.flush();
         }
     }
 
+    /**
+     * @return the side that a rendered image displayed at this location faces, based on its {@link Location#getYaw()}
+     */
+    static BlockFace getImageFacing(Location location) {
+        double rotation = location.getYaw(); // The rotation axis.
+        if (rotation >= 135 || rotation < -135) return BlockFace.NORTH;
+        if (rotation >= -135 && rotation < -45) return BlockFace.EAST;
+        if (rotation >= -45 && rotation < 45) return BlockFace.SOUTH;
+        if (rotation >= 45 && rotation < 135) return BlockFace.WEST;
+        throw new IllegalArgumentException("Unknown rotation yaw: " + rotation);
+    }
+
     /**
      * A simple method used to save images. Useful to cache text generated images.
      *
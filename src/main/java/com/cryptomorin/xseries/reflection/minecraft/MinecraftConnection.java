@@ -1,12 +1,14 @@
 package com.cryptomorin.xseries.reflection.minecraft;
 
 import com.cryptomorin.xseries.reflection.XReflection;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.invoke.MethodHandle;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Objects;
 
 import static com.cryptomorin.xseries.reflection.XReflection.ofMinecraft;
@@ -38,6 +40,16 @@ public final class MinecraftConnection {
     public static final MinecraftClassHandle Packet = ofMinecraft()
             .inPackage(MinecraftPackage.NMS, "network.protocol")
             .map(MinecraftMapping.SPIGOT, "Packet");
+    public static final MinecraftClassHandle ServerCommonPacketListenerImpl = ofMinecraft()
+            .inPackage(MinecraftPackage.NMS, "server.network")
+            .named("ServerCommonPacketListenerImpl");
+    public static final MinecraftClassHandle Connection = ofMinecraft()
+            .inPackage(MinecraftPackage.NMS, "network")
+            .map(MinecraftMapping.MOJANG, "Connection")
+            .map(MinecraftMapping.SPIGOT, "NetworkManager");
+    public static final MinecraftClassHandle PacketSendListener = ofMinecraft()
+            .inPackage(MinecraftPackage.NMS, "network")
+            .named("PacketSendListener");
 
     private static final MethodHandle PLAYER_CONNECTION = ServerPlayer
             // .getterField(v(20, 5, "connection").v(20, "c").v(17, "b").orElse("playerConnection"))
@@ -70,6 +82,98 @@ public final class MinecraftConnection {
             .map(MinecraftMapping.OBFUSCATED, v(20, 2, "b").v(18, "a").orElse("sendPacket"))
             .unreflect();
 
+    /**
+     * The {@code Connection} (NetworkManager) of a packet listener and the methods to write
+     * packets to it without flushing the channel right away. These were added in 1.20.2
+     * and are null if they're not available or not mapped on this server.
+     */
+    @Nullable
+    private static final MethodHandle NETWORK_MANAGER, SEND_PACKET_NO_FLUSH, FLUSH_CHANNEL;
+    /**
+     * The {@code processedDisconnect} state that CraftBukkit adds to packet listeners and {@code Connection#isConnected()}.
+     * The listener's own send method drops the packets of disconnected players, so packets are only written directly
+     * to a {@code Connection} if both of these can be checked. Otherwise, the connection queues the packets.
+     */
+    @Nullable
+    private static final MethodHandle PROCESSED_DISCONNECT, IS_CONNECTED;
+    /**
+     * Stops a packet listener from flushing its channel for each packet that's sent on the server thread.
+     * Added in 1.20.2, null if they're not available or not mapped on this server.
+     */
+    @Nullable
+    private static final MethodHandle SUSPEND_FLUSHING, RESUME_FLUSHING;
+
+    static {
+        MethodHandle networkManager = null, sendNoFlush = null, flush = null;
+
+        try {
+            networkManager = ServerCommonPacketListenerImpl
+                    .field().getter()
+                    .returns(Connection)
+                    .map(MinecraftMapping.MOJANG, "connection")
+                    .reflect();
+            sendNoFlush = Connection
+                    .method()
+                    .returns(void.class)
+                    .parameters(Packet, PacketSendListener, XReflection.of(boolean.class))
+                    .map(MinecraftMapping.MOJANG, "send")
+                    .reflect();
+            flush = Connection
+                    .method()
+                    .returns(void.class)
+                    .map(MinecraftMapping.MOJANG, "flushChannel")
+                    .reflect();
+        } catch (Throwable ignored) {
+            networkManager = null;
+            sendNoFlush = null;
+            flush = null;
+        }
+
+        NETWORK_MANAGER = networkManager;
+        SEND_PACKET_NO_FLUSH = sendNoFlush;
+        FLUSH_CHANNEL = flush;
+
+        MethodHandle processedDisconnect = null, isConnected = null;
+        try {
+            processedDisconnect = ServerCommonPacketListenerImpl
+                    .field().getter()
+                    .returns(boolean.class)
+                    .named("processedDisconnect")
+                    .reflect();
+            isConnected = Connection
+                    .method()
+                    .returns(boolean.class)
+                    .map(MinecraftMapping.MOJANG, "isConnected")
+                    .reflect();
+        } catch (Throwable ignored) {
+            processedDisconnect = null;
+            isConnected = null;
+        }
+
+        PROCESSED_DISCONNECT = processedDisconnect;
+        IS_CONNECTED = isConnected;
+
+        MethodHandle suspendFlushing = null, resumeFlushing = null;
+        try {
+            suspendFlushing = ServerCommonPacketListenerImpl
+                    .method()
+                    .returns(void.class)
+                    .map(MinecraftMapping.MOJANG, "suspendFlushing")
+                    .reflect();
+            resumeFlushing = ServerCommonPacketListenerImpl
+                    .method()
+                    .returns(void.class)
+                    .map(MinecraftMapping.MOJANG, "resumeFlushing")
+                    .reflect();
+        } catch (Throwable ignored) {
+            suspendFlushing = null;
+            resumeFlushing = null;
+        }
+
+        SUSPEND_FLUSHING = suspendFlushing;
+        RESUME_FLUSHING = resumeFlushing;
+    }
+
     @NotNull
     public static Object getHandle(@NotNull Player player) {
         Objects.requireNonNull(player, "Cannot get handle of null player");
@@ -121,4 +225,88 @@ public final class MinecraftConnection {
             throw new RuntimeException("Failed to send packet to " + player + ": " + Arrays.toString(packets), throwable);
         }
     }
+
+    /**
+     * Sends the same packets to all the given players. If the server supports it,
+     * the packets are written to every connection first and each channel is only
+     * flushed once at the end, otherwise this is the same as calling
+     * {@link #sendPacket(Player, Object...)} for each player.
+     * On the server thread, the packets go through the normal send method of each player
+     * with flushing suspended. Players that are no longer online or are disconnecting are ignored.
+     *
+     * @param players the players to send the packets to.
+     * @param packets the packets to send.
+     * @since 12.0.0
+     */
+    public static void sendPackets(@NotNull Collection<? extends Player> players, @NotNull Object... packets) {
+        Objects.requireNonNull(players, () -> "Can't send packets to null players: " + Arrays.toString(packets));
+        Objects.requireNonNull(packets, () -> "Can't send null packets to players: " + players);
+        if (players.isEmpty() || packets.length == 0) return;
+
+        for (Object packet : packets) Objects.requireNonNull(packet, "Null packet detected between packets array");
+        if (SUSPEND_FLUSHING != null && Bukkit.isPrimaryThread()) {
+            sendSuspended(players, packets);
+            return;
+        }
+        if (SEND_PACKET_NO_FLUSH == null || PROCESSED_DISCONNECT == null) {
+            for (Player player : players) sendPacket(player, packets);
+            return;
+        }
+
+        Object[] pending = new Object[players.size()];
+        int flushes = 0;
+        try {
+            for (Player player : players) {
+                Object connection = PLAYER_CONNECTION.invoke(GET_HANDLE.invoke(player));
+                if (connection == null || (boolean) PROCESSED_DISCONNECT.invoke(connection)) continue;
+
+                Object network = NETWORK_MANAGER.invoke(connection);
+                if (!(boolean) IS_CONNECTED.invoke(network)) continue;
+                for (Object packet : packets) {
+                    SEND_PACKET_NO_FLUSH.invoke(network, packet, (Object) null, false);
+                }
+                pending[flushes++] = network;
+            }
+        } catch (Throwable throwable) {
+            throw new RuntimeException("Failed to send packets to " + players + ": " + Arrays.toString(packets), throwable);
+        } finally {
+            // Even if one of them failed, the packets that were already written need to go out.
+            for (int i = 0; i < flushes; i++) {
+                try {
+                    FLUSH_CHANNEL.invoke(pending[i]);
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the packets through the send method of each player's packet listener,
+     * which only flushes the channel once it's resumed.
+     */
+    private static void sendSuspended(Collection<? extends Player> players, Object[] packets) {
+        Object[] suspended = new Object[players.size()];
+        int count = 0;
+        try {
+            for (Player player : players) {
+                Object connection = PLAYER_CONNECTION.invoke(GET_HANDLE.invoke(player));
+                if (connection == null) continue;
+
+                SUSPEND_FLUSHING.invoke(connection);
+                suspended[count++] = connection;
+                for (Object packet : packets) {
+                    SEND_PACKET.invoke(connection, packet);
+                }
+            }
+        } catch (Throwable throwable) {
+            throw new RuntimeException("Failed to send packets to " + players + ": " + Arrays.toString(packets), throwable);
+        } finally {
+            for (int i = 0; i < count; i++) {
+                try {
+                    RESUME_FLUSHING.invoke(suspended[i]);
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+    }
 }
@@ -123,6 +123,17 @@ public abstract class DummyAbstractServer {
     }
 
     protected void runServer() {
+        Thread thread = startServer();
+        XSeriesTests.test();
+        Executors.newSingleThreadScheduledExecutor(Executors.defaultThreadFactory()).schedule(thread::interrupt, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts the server and waits for it to load without running any tests.
+     *
+     * @return the thread that started the server.
+     */
+    protected Thread startServer() {
         try {
             File here = new File(System.getProperty("user.dir"));
             Path path = here.toPath();
@@ -163,8 +174,7 @@ public abstract class DummyAbstractServer {
             thread.start();
             thread.join();
             Thread.sleep(2000L);
-            XSeriesTests.test();
-            Executors.newSingleThreadScheduledExecutor(Executors.defaultThreadFactory()).schedule(thread::interrupt, 10, TimeUnit.SECONDS);
+            return thread;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -1,10 +1,16 @@
 import com.cryptomorin.xseries.*;
+import com.cryptomorin.xseries.particles.ParticleBatch;
+import com.cryptomorin.xseries.particles.ParticleBudget;
+import com.cryptomorin.xseries.particles.ParticleCulling;
 import com.cryptomorin.xseries.particles.ParticleDisplay;
+import com.cryptomorin.xseries.particles.ParticleGeometry;
+import com.cryptomorin.xseries.particles.ParticleImage;
 import com.cryptomorin.xseries.profiles.builder.XSkull;
 import com.cryptomorin.xseries.profiles.mojang.MojangAPI;
 import com.cryptomorin.xseries.profiles.objects.Profileable;
 import com.cryptomorin.xseries.reflection.XReflection;
 import com.github.cryptomorin.test.ReflectionTests;
+import org.bukkit.Instrument;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Particle;
@@ -13,10 +19,17 @@ import org.bukkit.enchantments.Enchantment;
 import org.bukkit.potion.PotionEffectType;
 import org.junit.jupiter.api.Assertions;
 
-import java.util.Arrays;
-import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -45,6 +58,9 @@ public final class XSeriesTests {
         assertMaterial("RED_BED", "RED_BED");
         assertMaterial("MELON", "MELON");
         assertMaterial("GREEN_CONCRETE_POWDER", "CONCRETE_POWDER:13");
+        assertSame(XMaterial.matchXMaterialOrNull("diamond sword"), XMaterial.DIAMOND_SWORD);
+        assertSame(XMaterial.matchXMaterialOrNull(new StringBuilder("wool: 14")), XMaterial.RED_WOOL);
+        assertNull(XMaterial.matchXMaterialOrNull("NOT_A_MATERIAL"));
         // assertFalse(XMaterial.MAGENTA_TERRACOTTA.isOneOf(Arrays.asList("GREEN_TERRACOTTA", "BLACK_BED", "DIRT")));
         // assertTrue(XMaterial.BLACK_CONCRETE.isOneOf(Arrays.asList("RED_CONCRETE", "CONCRETE:15", "CONCRETE:14")));
         for (Material material : Material.values())
@@ -74,16 +90,69 @@ public final class XSeriesTests {
         assertPresent(XSound.matchXSound("AMBIENCE_CAVE"));
         assertPresent(XSound.matchXSound("RECORD_11"));
         for (Sound sound : Sound.values()) XSound.matchXSound(sound);
+        XSound.parse("~ENTITY_PLAYER_BURP@PLAYERS, 2.5, 0.5").withVolume(10);
+        XSound.Record record = XSound.parse("~ENTITY_PLAYER_BURP@PLAYERS, 2.5, 0.5");
+        assertEquals(2.5f, record.getVolume());
+        assertEquals(XSound.Category.PLAYERS, record.getCategory());
+        assertTrue(XSound.getParseCacheStats().hitCount() > 0);
+        assertEquals("minecraft:custom/sound.name", XSound.parse("minecraft:custom/sound.name").getSound());
+        assertThrows(IllegalArgumentException.class, () -> XSound.parse("custom/sound:name"));
+        testConcurrentSoundLookups();
+
+        print("Testing NoteBlockMusic...");
+        NoteBlockMusic.Timeline timeline = NoteBlockMusic.parseInstructions("PIANO,D,2,100 PIANO,E 50 PIANO,F").toTimeline();
+        assertEquals(4, timeline.size());
+        assertEquals(250, timeline.getLength());
+        testCompiledSongs();
+        testNoteBlockStudio();
 
         print("Testing particles...");
         ParticleDisplay.of(Particle.CLOUD).
                 withLocation(new Location(null, 1, 1, 1))
                 .rotate(90, 90, 90).withCount(-1).offset(5, 5, 5).withExtra(1).forceSpawn(true);
+        ParticleBudget budget = new ParticleBudget(100, 10);
+        assertSame(budget, ParticleDisplay.of(Particle.CLOUD).withBudget(budget).getBudget());
+        assertEquals(1.0, budget.getDetail());
+        assertThrows(IllegalArgumentException.class, () -> budget.minDetail(0));
+        ParticleCulling culling = new ParticleCulling(32).fieldOfView(120, 4).detailTier(24, 4).detailTier(12, 2);
+        assertSame(culling, ParticleDisplay.of(Particle.CLOUD).withCulling(culling).getCulling());
+        assertThrows(IllegalArgumentException.class, () -> culling.detailTier(10, 0));
+        ParticleGeometry geometry = ParticleGeometry.cached("test", builder -> builder.add(1, 2, 3).add(4, 5, 6), 1, 2);
+        assertSame(geometry, ParticleGeometry.cached("test", builder -> builder.add(0, 0, 0), 1, 2));
+        assertArrayEquals(new double[]{1, 2, 3, 4, 5, 6}, geometry.getPoints());
+        ParticleDisplay rotated = ParticleDisplay.of(Particle.CLOUD);
+        assertArrayEquals(new double[]{1, 0, 0, 0, 1, 0, 0, 0, 1}, rotated.getRotationMatrix());
+        double[] points = {1, 0, 0};
+        rotated.rotate(ParticleDisplay.Rotation.of(Math.PI / 2, ParticleDisplay.Axis.Z)).rotatePoints(points);
+        assertArrayEquals(new double[]{0, -1, 0}, points, 1e-9);
+        ParticleBatch batch = new ParticleBatch();
+        assertSame(batch, rotated.withBatch(batch).clone().getBatch());
+        assertEquals(0, batch.size());
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, 0xFFFF0000);
+        image.setRGB(1, 0, 0xFFFF0000);
+        image.setRGB(1, 1, 0xFF00FF00);
+        ParticleImage particleImage = ParticleImage.render(image, 0.5);
+        assertEquals(3, particleImage.size());
+        assertEquals(2, particleImage.getPaletteSize());
+        assertEquals(0xFF0000, particleImage.getRGB(0));
+        assertEquals(0f, particleImage.getX(1));
 
         print("Testing XTag...");
         assertTrue(XTag.CORALS.isTagged(XMaterial.TUBE_CORAL));
         assertTrue(XTag.LOGS_THAT_BURN.isTagged(XMaterial.STRIPPED_ACACIA_LOG));
         assertFalse(XTag.ANVIL.isTagged(XMaterial.BEDROCK));
+        assertTrue(XTag.getTags(XMaterial.TUBE_CORAL).contains(XTag.CORALS));
+        assertTrue(XTag.TagMask.of(XTag.ANVIL, XTag.CORALS).matchesAny(XMaterial.TUBE_CORAL));
+        assertFalse(XTag.TagMask.of(XTag.ANVIL, XTag.CORALS).matchesAll(XMaterial.TUBE_CORAL));
+
+        XTag.Matcher.Compiled<XMaterial> compiled = XTag.compileMatchers(Arrays.asList("CONTAINS:chest", "contains:dye", "stone", "TAG:logs"));
+        assertTrue(compiled.matches(XMaterial.TRAPPED_CHEST));
+        assertTrue(compiled.matches(XMaterial.GREEN_DYE));
+        assertTrue(compiled.matches(XMaterial.OAK_LOG));
+        assertFalse(compiled.matches(XMaterial.STONE_BRICKS));
+        assertSame(XTag.LOGS, XTag.getTag("minecraft:logs"));
+        assertEquals("LOGS", XTag.getName(XTag.LOGS));
 
         print("Testing reflection...");
         print("Version pack: " + XReflection.getVersionInformation());
@@ -93,6 +162,220 @@ public final class XSeriesTests {
         print("\n\n\nTest end...");
     }
 
+    private static void testConcurrentSoundLookups() {
+        print("Testing concurrent XSound lookups...");
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(threads);
+
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int round = 0; round < 50; round++) {
+                    for (XSound sound : XSound.VALUES) {
+                        assertSame(sound, XSound.matchXSound(sound.name()).orElse(null));
+                        if (sound.isSupported()) assertSame(sound.parseSound(), XSound.matchXSound(sound.parseSound()).parseSound());
+                    }
+                    XSound.Record record = XSound.parse("PLAYERS@minecraft:stress.test_" + thread + '.' + round + ", 2, 0.5");
+                    assertEquals(XSound.Category.PLAYERS, record.getCategory());
+                    assertEquals("minecraft:stress.test_" + thread + '.' + round, record.getSound());
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        try {
+            for (Future<?> future : futures) future.get(1, TimeUnit.MINUTES);
+        } catch (Exception ex) {
+            throw new AssertionError("Concurrent XSound lookups failed", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void testCompiledSongs() {
+        print("Testing compiled songs...");
+        NoteBlockMusic.Timeline timeline = new NoteBlockMusic.Timeline.Builder()
+                .add(100, XSound.BLOCK_NOTE_BLOCK_HARP, 0.5f, 1.5f)
+                .add(0, XSound.BLOCK_NOTE_BLOCK_BASS, 1.0f, 0.5f)
+                .add(100, XSound.BLOCK_NOTE_BLOCK_BASS, 0.25f, 2.0f)
+                .build(300);
+        byte[] bytes;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            timeline.write(out);
+            bytes = out.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        // The notes are sorted by their time, and notes with the same time keep their order.
+        NoteBlockMusic.Timeline read = NoteBlockMusic.Timeline.read(ByteBuffer.wrap(bytes));
+        assertEquals(3, read.size());
+        assertEquals(300, read.getLength());
+        assertEquals(0, read.getTime(0));
+        assertEquals(100, read.getTime(1));
+        assertEquals(100, read.getTime(2));
+        assertSame(XSound.BLOCK_NOTE_BLOCK_BASS, read.getSound(0));
+        assertSame(XSound.BLOCK_NOTE_BLOCK_HARP, read.getSound(1));
+        assertSame(XSound.BLOCK_NOTE_BLOCK_BASS, read.getSound(2));
+        assertEquals(1.0f, read.getVolume(0));
+        assertEquals(0.5f, read.getVolume(1));
+        assertEquals(0.25f, read.getVolume(2));
+        assertEquals(0.5f, read.getPitch(0));
+        assertEquals(1.5f, read.getPitch(1));
+        assertEquals(2.0f, read.getPitch(2));
+
+        byte[] badMagic = bytes.clone();
+        badMagic[0] ^= 1;
+        assertThrows(IllegalArgumentException.class, () -> NoteBlockMusic.Timeline.read(ByteBuffer.wrap(badMagic)));
+        byte[] badVersion = bytes.clone();
+        badVersion[5] = 99; // The low byte of the version after the magic number.
+        assertThrows(IllegalArgumentException.class, () -> NoteBlockMusic.Timeline.read(ByteBuffer.wrap(badVersion)));
+        assertThrows(IllegalArgumentException.class, () -> NoteBlockMusic.Timeline.read(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1))));
+        assertThrows(IllegalArgumentException.class, () -> NoteBlockMusic.Timeline.read(ByteBuffer.wrap(Arrays.copyOf(bytes, 10))));
+
+        try {
+            Path directory = Files.createTempDirectory("xseries-songs");
+            directory.toFile().deleteOnExit();
+            Path song = directory.resolve("song" + NoteBlockMusic.SongLibrary.EXTENSION);
+            timeline.write(song);
+            song.toFile().deleteOnExit();
+            Path other = Files.write(directory.resolve("notes.txt"), bytes);
+            other.toFile().deleteOnExit();
+
+            NoteBlockMusic.SongLibrary library = NoteBlockMusic.SongLibrary.load(directory);
+            assertEquals(1, library.size());
+            assertEquals(Collections.singleton("song"), library.getNames());
+            NoteBlockMusic.Timeline loaded = library.get("song");
+            assertEquals(3, loaded.size());
+            assertEquals(300, loaded.getLength());
+            assertEquals(1.5f, loaded.getPitch(1));
+            assertSame(loaded, library.get("song"));
+            assertNull(library.get("notes"));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void testNoteBlockStudio() {
+        print("Testing Note Block Studio songs...");
+        byte[] song = nbsSong();
+        NoteBlockMusic.Timeline all;
+        try (NoteBlockMusic.NoteBlockStudio studio = new NoteBlockMusic.NoteBlockStudio(new ByteArrayInputStream(song))) {
+            assertEquals(5, studio.getVersion());
+            all = studio.readAll();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        // The note with the custom instrument is ignored.
+        assertEquals(3, all.size());
+        assertEquals(400, all.getLength());
+        assertEquals(0, all.getTime(0));
+        assertEquals(0, all.getTime(1));
+        assertEquals(400, all.getTime(2));
+        assertSame(NoteBlockMusic.getSoundFromInstrument(Instrument.PIANO), all.getSound(0));
+        assertSame(NoteBlockMusic.getSoundFromInstrument(Instrument.GUITAR), all.getSound(2));
+        // Keys outside the range are moved by octaves.
+        assertEquals(1.0f, all.getPitch(0));
+        assertEquals(0.5f, all.getPitch(1));
+        assertEquals((float) Math.pow(2, 1 / 12.0), all.getPitch(2), 1e-6f);
+        // The velocity is multiplied by the layer volume.
+        assertEquals(1.0f, all.getVolume(0));
+        assertEquals(0.25f, all.getVolume(1));
+        assertEquals(1.0f, all.getVolume(2));
+
+        try (NoteBlockMusic.NoteBlockStudio studio = new NoteBlockMusic.NoteBlockStudio(new ByteArrayInputStream(song))) {
+            NoteBlockMusic.Timeline first = studio.readSegment(2);
+            assertEquals(2, first.size());
+            assertEquals(200, first.getLength());
+            NoteBlockMusic.Timeline empty = studio.readSegment(2);
+            assertEquals(0, empty.size());
+            assertEquals(200, empty.getLength());
+            NoteBlockMusic.Timeline last = studio.readSegment(2);
+            assertEquals(1, last.size());
+            // Times are relative to the start of the segment.
+            assertEquals(0, last.getTime(0));
+            assertEquals(1.0f, last.getVolume(0));
+            assertNull(studio.readSegment(2));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * A version 5 song with two layers and a tempo of 10 ticks per second.
+     */
+    private static byte[] nbsSong() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        nbsShort(out, 0); // New format
+        out.write(5); // Version
+        out.write(16); // Vanilla instruments
+        nbsShort(out, 5); // Length
+        nbsShort(out, 2); // Layers
+        for (int i = 0; i < 4; i++) nbsString(out, "test"); // Name, author, original author and description
+        nbsShort(out, 1000); // Tempo
+        out.write(0); // Auto-saving
+        out.write(0); // Auto-saving duration
+        out.write(4); // Time signature
+        for (int i = 0; i < 5; i++) nbsInt(out, 0); // Statistics
+        nbsString(out, ""); // Imported file name
+        out.write(0); // Loop
+        out.write(0); // Max loop count
+        nbsShort(out, 0); // Loop start tick
+
+        nbsShort(out, 1); // Tick 0
+        nbsNote(out, 0, 45, 100); // F#4 on layer 0
+        nbsNote(out, 0, 21, 50); // Below the range on layer 1
+        nbsShort(out, 0);
+        nbsShort(out, 4); // Tick 4
+        nbsNote(out, 5, 70, 100); // Above the range on layer 0
+        nbsNote(out, 16, 45, 100); // Custom instrument on layer 1
+        nbsShort(out, 0);
+        nbsShort(out, 0); // End of notes
+
+        nbsLayer(out, "first", 100);
+        nbsLayer(out, "second", 50);
+        return out.toByteArray();
+    }
+
+    private static void nbsNote(ByteArrayOutputStream out, int instrument, int key, int velocity) {
+        // Layer 0 on the first note of a tick, then the next layer.
+        nbsShort(out, 1);
+        out.write(instrument);
+        out.write(key);
+        out.write(velocity);
+        out.write(100); // Panning
+        nbsShort(out, 0); // Fine pitch
+    }
+
+    private static void nbsLayer(ByteArrayOutputStream out, String name, int volume) {
+        nbsString(out, name);
+        out.write(0); // Lock
+        out.write(volume);
+        out.write(100); // Stereo
+    }
+
+    private static void nbsShort(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+    }
+
+    private static void nbsInt(ByteArrayOutputStream out, int value) {
+        nbsShort(out, value);
+        nbsShort(out, value >>> 16);
+    }
+
+    private static void nbsString(ByteArrayOutputStream out, String str) {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        nbsInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
     private static void testSkulls() {
         print("Testing skulls UUID...");
         XSkull.createItem().profile(Profileable.of(UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5"))).apply();
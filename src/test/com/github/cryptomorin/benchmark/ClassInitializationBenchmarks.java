@@ -0,0 +1,32 @@
+package com.github.cryptomorin.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A startup cost report that measures the static initialization time of each X* class.
+ * Every fork only initializes a single class once, so the results also include the cost
+ * of initializing the classes that it depends on, e.g. {@code XTag} also initializes {@code XMaterial}
+ * and {@code XEnchantment} but not the values of each tag.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class ClassInitializationBenchmarks {
+    @Param({"XMaterial", "XSound", "XTag", "XPotion", "XEnchantment", "XBiome", "XEntityType"})
+    public String type;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        XSeriesBenchmarks.startServer();
+    }
+
+    @Benchmark
+    public Class<?> initialize() throws ClassNotFoundException {
+        return Class.forName("com.cryptomorin.xseries." + type);
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.cryptomorin.benchmark;
+
+import com.cryptomorin.xseries.XSound;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares checking every player in the world against {@link XSound.HearingIndex}
+ * for finding the players that can hear a sound.
+ * <p>
+ * The players are fake and spread randomly in a 1024x1024 area. Just like the real implementation,
+ * their {@link Player#getLocation()} allocates a new location every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HearingPlayersBenchmarks {
+    private static final int AREA = 1024;
+    private static final int SOUNDS = 1024;
+
+    @Param({"50", "200", "500"})
+    public int players;
+
+    private World world;
+    private XSound.HearingIndex index;
+    private Location[] sounds;
+    private int sound;
+    private final List<Player> sink = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        XSeriesBenchmarks.startServer();
+        Random random = new Random(players);
+        UUID worldId = UUID.randomUUID();
+        List<Player> playerList = new ArrayList<>(players);
+
+        world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class[]{World.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUID":
+                    return worldId;
+                case "getPlayers":
+                    return playerList;
+                case "hashCode":
+                    return worldId.hashCode();
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        });
+
+        for (int i = 0; i < players; i++) {
+            UUID id = UUID.randomUUID();
+            double x = random.nextDouble() * AREA, y = 64 + random.nextDouble() * 32, z = random.nextDouble() * AREA;
+            playerList.add((Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class[]{Player.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getUniqueId":
+                        return id;
+                    case "getLocation":
+                        return new Location(world, x, y, z);
+                    case "hashCode":
+                        return id.hashCode();
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        throw new UnsupportedOperationException(method.toString());
+                }
+            }));
+        }
+
+        // Use the linear scan for SoundPlayer, and query the index directly
+        // since the benchmark threads aren't the main thread.
+        XSound.HearingIndex.enable();
+        for (Player player : playerList) XSound.HearingIndex.track(player, player.getLocation());
+        index = XSound.HearingIndex.get(world);
+
+        sounds = new Location[SOUNDS];
+        for (int i = 0; i < SOUNDS; i++) {
+            sounds[i] = new Location(world, random.nextDouble() * AREA, 64 + random.nextDouble() * 32, random.nextDouble() * AREA);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        XSound.HearingIndex.disable();
+    }
+
+    private Location nextSound() {
+        return sounds[sound++ & (SOUNDS - 1)];
+    }
+
+    @Benchmark
+    public Collection<Player> linear() {
+        return XSound.SoundPlayer.getHearingPlayers(nextSound(), 1.0);
+    }
+
+    @Benchmark
+    public Collection<Player> indexed() {
+        Location location = nextSound();
+        return index.getPlayersInRange(location.getX(), location.getY(), location.getZ(), 16.0);
+    }
+
+    @Benchmark
+    public Collection<Player> indexedSink() {
+        Location location = nextSound();
+        sink.clear();
+        index.getPlayersInRange(location.getX(), location.getY(), location.getZ(), 16.0, sink);
+        return sink;
+    }
+}
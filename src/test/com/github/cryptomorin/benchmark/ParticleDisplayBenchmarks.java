@@ -0,0 +1,78 @@
+package com.github.cryptomorin.benchmark;
+
+import com.cryptomorin.xseries.particles.ParticleDisplay;
+import com.cryptomorin.xseries.particles.XParticle;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Color;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares spawning the points of a shape with {@link ParticleDisplay#spawn(double, double, double)}
+ * and {@link ParticleDisplay#spawnLocal(double, double, double)}.
+ * <p>
+ * The world is fake and doesn't send anything, so this only measures the cost of ParticleDisplay itself.
+ * Run with {@code -prof gc} to see the allocations per point. Note that the proxy
+ * boxes the arguments of each call, which is the same for both methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParticleDisplayBenchmarks {
+    private static final int POINTS = 2000;
+
+    @Param({"false", "true"})
+    public boolean rotated;
+
+    private ParticleDisplay display;
+    private double[] points;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        XSeriesBenchmarks.startServer();
+        UUID worldId = UUID.randomUUID();
+        World world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class[]{World.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUID":
+                    return worldId;
+                case "spawnParticle":
+                    return null;
+                case "hashCode":
+                    return worldId.hashCode();
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        });
+
+        display = ParticleDisplay.of(XParticle.DUST).withColor(Color.RED, 1).withLocation(new Location(world, 0, 64, 0));
+        if (rotated) display.rotate(Math.PI / 4, Math.PI / 3, 0).rotate(ParticleDisplay.Rotation.of(Math.PI / 6, ParticleDisplay.Axis.Y));
+
+        points = new double[POINTS * 3];
+        for (int i = 0; i < POINTS; i++) {
+            double theta = i * (Math.PI * 2 / POINTS);
+            points[i * 3] = Math.cos(theta) * 3;
+            points[i * 3 + 2] = Math.sin(theta) * 3;
+        }
+    }
+
+    @Benchmark
+    public void spawn() {
+        double[] points = this.points;
+        for (int i = 0; i < points.length; i += 3) display.spawn(points[i], points[i + 1], points[i + 2]);
+    }
+
+    @Benchmark
+    public void spawnLocal() {
+        double[] points = this.points;
+        for (int i = 0; i < points.length; i += 3) display.spawnLocal(points[i], points[i + 1], points[i + 2]);
+    }
+}
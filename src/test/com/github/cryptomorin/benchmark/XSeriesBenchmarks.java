@@ -0,0 +1,149 @@
+package com.github.cryptomorin.benchmark;
+
+import com.cryptomorin.xseries.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the string matching methods of the X* enums.
+ * Each fork starts its own dummy server since these classes need a working Bukkit implementation.
+ * <p>
+ * Use {@code mvn clean test-compile exec:exec -Pbenchmark,latest} to run them.
+ * A regex can be passed with {@code -Djmh.args="XMaterial"} to only run specific benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XSeriesBenchmarks {
+    private static final String[][] MATERIALS = {
+            {"DIAMOND_SWORD", "OAK_LOG", "WHITE_WOOL", "GRASS_BLOCK", "ENCHANTED_GOLDEN_APPLE", "PLAYER_HEAD"},
+            {"WOOL", "INK_SACK", "CLAY_BRICK", "LOG_2", "SKULL_ITEM", "WOOD_SWORD"},
+            {"diamond sword", "  Oak-Log ", "white_WOOL", "Grass  Block", "enchanted-golden_apple", "player Head"},
+            {"NOT_A_MATERIAL", "DIAMOND_SWORDS", "QWERTY", "OAK_LOGS", "DIRT_BLOCK", "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"}
+    };
+    private static final String[][] SOUNDS = {
+            {"ENTITY_PLAYER_LEVELUP", "BLOCK_NOTE_BLOCK_PLING", "UI_BUTTON_CLICK", "ENTITY_EXPERIENCE_ORB_PICKUP", "BLOCK_CHEST_OPEN"},
+            {"LEVEL_UP", "NOTE_PLING", "CLICK", "ORB_PICKUP", "CHEST_OPEN"},
+            {"entity player levelup", "Block-Note-Block-Pling", "ui_button_CLICK", " entity experience orb pickup", "block  chest  open"},
+            {"NOT_A_SOUND", "ENTITY_PLAYER_LEVELUPS", "QWERTY", "BLOCK_CHEST_OPENED", "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"}
+    };
+    private static final String[][] POTIONS = {
+            {"SPEED", "SLOWNESS", "HASTE", "JUMP_BOOST", "STRENGTH"},
+            {"SLOW", "FAST_DIGGING", "JUMP", "INCREASE_DAMAGE", "DAMAGE_RESISTANCE"},
+            {"speed", " Slowness", "haste ", "Jump-Boost", "strength"},
+            {"NOT_A_POTION", "SPEEDY", "QWERTY", "JUMP_BOOSTS", "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"}
+    };
+    private static final String[][] ENCHANTMENTS = {
+            {"SHARPNESS", "EFFICIENCY", "UNBREAKING", "FORTUNE", "PROTECTION"},
+            {"DAMAGE_ALL", "DIG_SPEED", "DURABILITY", "LOOT_BONUS_BLOCKS", "PROTECTION_ENVIRONMENTAL"},
+            {"sharpness", " Efficiency", "unbreaking ", "Fort-une", "PROTECTION"},
+            {"NOT_AN_ENCHANTMENT", "SHARPNESSS", "QWERTY", "FORTUNES", "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"}
+    };
+    private static final String[][] BIOMES = {
+            {"PLAINS", "DESERT", "WINDSWEPT_HILLS", "SNOWY_PLAINS", "BADLANDS"},
+            {"EXTREME_HILLS", "ICE_FLATS", "MESA", "BEACHES", "ROOFED_FOREST"},
+            {"plains", " Desert", "windswept hills", "Snowy-Plains", "bad lands"},
+            {"NOT_A_BIOME", "PLAINSS", "QWERTY", "DESERTS", "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"}
+    };
+    private static final String[] MATERIALS_WITH_DATA = {"WOOL:14", "INK_SACK:1", "CONCRETE_POWDER:13", "SAPLING: 4", "SKULL_ITEM:3", "STAINED_GLASS:abc"};
+    private static final String[] POTION_IDS = {"1", "2", "3", "8", "16"};
+
+    /**
+     * Starts the dummy server from the tests. JMH doesn't allow benchmarks in the default package
+     * and classes in the default package can't be referenced directly, so we have to use reflection.
+     */
+    static void startServer() {
+        try {
+            Object server = Class.forName("DummySpigotTest").getDeclaredConstructor().newInstance();
+            Method startServer = Class.forName("DummyAbstractServer").getDeclaredMethod("startServer");
+            startServer.setAccessible(true);
+            startServer.invoke(server);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to start the dummy server", e);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        startServer();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Inputs {
+        /**
+         * The type of the names given to the matchers:
+         * canonical enum names, legacy names, names with odd casing and spacing and names that don't match anything.
+         */
+        @Param({"CANONICAL", "LEGACY", "CASING", "MISS"})
+        public String type;
+        private String[] materials, sounds, potions, enchantments, biomes;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            int index;
+            switch (type) {
+                case "CANONICAL":
+                    index = 0;
+                    break;
+                case "LEGACY":
+                    index = 1;
+                    break;
+                case "CASING":
+                    index = 2;
+                    break;
+                case "MISS":
+                    index = 3;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown input type: " + type);
+            }
+
+            materials = MATERIALS[index];
+            sounds = SOUNDS[index];
+            potions = POTIONS[index];
+            enchantments = ENCHANTMENTS[index];
+            biomes = BIOMES[index];
+        }
+    }
+
+    @Benchmark
+    public void matchXMaterial(Inputs inputs, Blackhole blackhole) {
+        for (String material : inputs.materials) blackhole.consume(XMaterial.matchXMaterial(material));
+    }
+
+    @Benchmark
+    public void matchXMaterialWithData(Blackhole blackhole) {
+        for (String material : MATERIALS_WITH_DATA) blackhole.consume(XMaterial.matchXMaterial(material));
+    }
+
+    @Benchmark
+    public void matchXSound(Inputs inputs, Blackhole blackhole) {
+        for (String sound : inputs.sounds) blackhole.consume(XSound.matchXSound(sound));
+    }
+
+    @Benchmark
+    public void matchXPotion(Inputs inputs, Blackhole blackhole) {
+        for (String potion : inputs.potions) blackhole.consume(XPotion.matchXPotion(potion));
+    }
+
+    @Benchmark
+    public void matchXPotionById(Blackhole blackhole) {
+        for (String potion : POTION_IDS) blackhole.consume(XPotion.matchXPotion(potion));
+    }
+
+    @Benchmark
+    public void matchXEnchantment(Inputs inputs, Blackhole blackhole) {
+        for (String enchantment : inputs.enchantments) blackhole.consume(XEnchantment.matchXEnchantment(enchantment));
+    }
+
+    @Benchmark
+    public void matchXBiome(Inputs inputs, Blackhole blackhole) {
+        for (String biome : inputs.biomes) blackhole.consume(XBiome.matchXBiome(biome));
+    }
+}